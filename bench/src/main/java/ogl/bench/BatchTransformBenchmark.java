@@ -0,0 +1,96 @@
+package ogl.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import ogl.vecmath.Factory;
+import ogl.vecmath.Matrix;
+import ogl.vecmath.Vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare the per-<code>Vector</code> transform path with the batch transform
+ * methods of <code>Matrix</code>. Scores are per point.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(BatchTransformBenchmark.COUNT)
+public class BatchTransformBenchmark {
+
+  static final int COUNT = 65536;
+
+  @Param({ "ogl.vecmathimp.FactoryMutable" })
+  public String factory;
+
+  private Matrix m;
+  private Vector[] points, out;
+  private float[] xs, ys, zs, dxs, dys, dzs;
+  private FloatBuffer buf, dest;
+
+  @Setup
+  public void setup() {
+    Factory vecmath = Factories.load(factory);
+    m = vecmath.translationMatrix(1, 2, 3).mult(
+        vecmath.rotationMatrix(1, 1, 1, 30));
+
+    Random random = new Random(42);
+    points = new Vector[COUNT];
+    out = new Vector[COUNT];
+    xs = new float[COUNT];
+    ys = new float[COUNT];
+    zs = new float[COUNT];
+    dxs = new float[COUNT];
+    dys = new float[COUNT];
+    dzs = new float[COUNT];
+    buf = ByteBuffer.allocateDirect(COUNT * 3 * 4)
+        .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    dest = ByteBuffer.allocateDirect(COUNT * 3 * 4)
+        .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    for (int i = 0; i != COUNT; i++) {
+      xs[i] = random.nextFloat();
+      ys[i] = random.nextFloat();
+      zs[i] = random.nextFloat();
+      points[i] = vecmath.vector(xs[i], ys[i], zs[i]);
+      buf.put(xs[i]).put(ys[i]).put(zs[i]);
+    }
+    buf.rewind();
+  }
+
+  @Benchmark
+  public Vector[] perVector() {
+    for (int i = 0; i != COUNT; i++)
+      out[i] = m.transformPoint(points[i]);
+    return out;
+  }
+
+  @Benchmark
+  public float[] batchArrays() {
+    m.transformPoints(xs, ys, zs, 0, COUNT, dxs, dys, dzs);
+    return dxs;
+  }
+
+  @Benchmark
+  public FloatBuffer batchBuffer() {
+    m.transformPoints(buf, dest, COUNT);
+    return dest;
+  }
+}
@@ -0,0 +1,105 @@
+package ogl.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import ogl.vecmath.Color;
+import ogl.vecmath.Factory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every operation of <code>ogl.vecmath.Color</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorBenchmark {
+
+  @Param({ "ogl.vecmathimp.FactoryMutable" })
+  public String factory;
+
+  private Color a, b;
+  private FloatBuffer buffer;
+
+  @Setup
+  public void setup() {
+    Factory vecmath = Factories.load(factory);
+    a = vecmath.color(1, 0.5f, 0.25f);
+    b = vecmath.color(0.5f, 0.75f, 1.5f);
+    buffer = ByteBuffer.allocateDirect(vecmath.colorSize() * 4)
+        .order(ByteOrder.nativeOrder()).asFloatBuffer();
+  }
+
+  @Benchmark
+  public boolean isBlack() {
+    return a.isBlack();
+  }
+
+  @Benchmark
+  public Color add() {
+    return a.add(b);
+  }
+
+  @Benchmark
+  public Color modulateScalar() {
+    return a.modulate(0.5f);
+  }
+
+  @Benchmark
+  public Color modulateColor() {
+    return a.modulate(b);
+  }
+
+  @Benchmark
+  public Color clip() {
+    return b.clip();
+  }
+
+  @Benchmark
+  public int toAwtColor() {
+    return b.toAwtColor();
+  }
+
+  @Benchmark
+  public float[] asArray() {
+    return a.asArray();
+  }
+
+  @Benchmark
+  public FloatBuffer asBuffer() {
+    return a.asBuffer();
+  }
+
+  @Benchmark
+  public FloatBuffer fillBuffer() {
+    buffer.clear();
+    a.fillBuffer(buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public boolean equalsColor() {
+    return a.equals(b);
+  }
+
+  @Benchmark
+  public int compareTo() {
+    return a.compareTo(b);
+  }
+}
@@ -0,0 +1,21 @@
+package ogl.bench;
+
+import ogl.vecmath.Factory;
+
+/**
+ * Look up vecmath factories by class name. Every factory class exposes its
+ * instance in a public static field named <code>vecmath</code>.
+ */
+final class Factories {
+
+  private Factories() {
+  }
+
+  static Factory load(String className) {
+    try {
+      return (Factory) Class.forName(className).getField("vecmath").get(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException("No vecmath factory: " + className, e);
+    }
+  }
+}
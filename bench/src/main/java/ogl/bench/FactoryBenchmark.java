@@ -0,0 +1,104 @@
+package ogl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import ogl.vecmath.Color;
+import ogl.vecmath.Factory;
+import ogl.vecmath.Matrix;
+import ogl.vecmath.Vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every construction method of <code>ogl.vecmath.Factory</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactoryBenchmark {
+
+  @Param({ "ogl.vecmathimp.FactoryMutable" })
+  public String factory;
+
+  private Factory vecmath;
+  private Vector eye, center, up, axis;
+  private float[] elements;
+
+  @Setup
+  public void setup() {
+    vecmath = Factories.load(factory);
+    eye = vecmath.vector(0, 0, 3);
+    center = vecmath.vector(0, 0, 0);
+    up = vecmath.vector(0, 1, 0);
+    axis = vecmath.vector(1, 1, 1);
+    elements = vecmath.rotationMatrix(axis, 30).getValues();
+  }
+
+  @Benchmark
+  public Vector vector() {
+    return vecmath.vector(1, 2, 3);
+  }
+
+  @Benchmark
+  public Matrix identityMatrix() {
+    return vecmath.identityMatrix();
+  }
+
+  @Benchmark
+  public Matrix matrixElements() {
+    return vecmath.matrix(elements);
+  }
+
+  @Benchmark
+  public Matrix matrixBase() {
+    return vecmath.matrix(eye, up, axis);
+  }
+
+  @Benchmark
+  public Matrix translationMatrix() {
+    return vecmath.translationMatrix(1, 2, 3);
+  }
+
+  @Benchmark
+  public Matrix rotationMatrix() {
+    return vecmath.rotationMatrix(axis, 30);
+  }
+
+  @Benchmark
+  public Matrix scaleMatrix() {
+    return vecmath.scaleMatrix(1, 2, 3);
+  }
+
+  @Benchmark
+  public Matrix lookatMatrix() {
+    return vecmath.lookatMatrix(eye, center, up);
+  }
+
+  @Benchmark
+  public Matrix frustumMatrix() {
+    return vecmath.frustumMatrix(-1, 1, -1, 1, 0.1f, 100);
+  }
+
+  @Benchmark
+  public Matrix perspectiveMatrix() {
+    return vecmath.perspectiveMatrix(60, 1.5f, 0.1f, 100);
+  }
+
+  @Benchmark
+  public Color color() {
+    return vecmath.color(1, 0.5f, 0.25f);
+  }
+}
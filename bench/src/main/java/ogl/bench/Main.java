@@ -0,0 +1,51 @@
+package ogl.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the usual JMH command line and
+ * runs every factory benchmark against each <code>Factory</code>
+ * implementation found on the class path, unless <code>-p factory=...</code>
+ * is given explicitly.
+ */
+public final class Main {
+
+  // All known factory implementations, in report order.
+  static final String[] FACTORIES = { "ogl.vecmathimp.FactoryDefault",
+      "ogl.vecmathimp.FactoryMutable" };
+
+  private Main() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cli = new CommandLineOptions(args);
+    if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+        || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+    if (!cli.getParameter("factory").hasValue())
+      options.param("factory", available());
+    new Runner(options.build()).run();
+  }
+
+  private static String[] available() {
+    List<String> names = new ArrayList<String>();
+    for (String name : FACTORIES) {
+      try {
+        Factories.load(name);
+        names.add(name);
+      } catch (IllegalArgumentException e) {
+        System.out.println("# Skipping unavailable factory " + name);
+      }
+    }
+    return names.toArray(new String[names.size()]);
+  }
+}
@@ -0,0 +1,141 @@
+package ogl.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import ogl.vecmath.Factory;
+import ogl.vecmath.Matrix;
+import ogl.vecmath.Vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every operation of <code>ogl.vecmath.Matrix</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+  @Param({ "ogl.vecmathimp.FactoryMutable" })
+  public String factory;
+
+  // A rigid-body transformation and a general one with scale and projection.
+  private Matrix rigid, general;
+  private Vector v;
+  private FloatBuffer buffer;
+
+  @Setup
+  public void setup() {
+    Factory vecmath = Factories.load(factory);
+    rigid = vecmath.translationMatrix(1, 2, 3).mult(
+        vecmath.rotationMatrix(1, 1, 0, 30));
+    general = vecmath.perspectiveMatrix(60, 1.5f, 0.1f, 100).mult(rigid)
+        .mult(vecmath.scaleMatrix(2, 3, 4));
+    v = vecmath.vector(1, 2, 3);
+    buffer = ByteBuffer.allocateDirect(16 * 4).order(ByteOrder.nativeOrder())
+        .asFloatBuffer();
+  }
+
+  @Benchmark
+  public Matrix mult() {
+    return general.mult(rigid);
+  }
+
+  @Benchmark
+  public Matrix multSlow() {
+    return general.multSlow(rigid);
+  }
+
+  @Benchmark
+  public float get() {
+    return general.get(2, 1);
+  }
+
+  @Benchmark
+  public float[] getValues() {
+    return general.getValues();
+  }
+
+  @Benchmark
+  public Vector transformPoint() {
+    return general.transformPoint(v);
+  }
+
+  @Benchmark
+  public Vector transformDirection() {
+    return general.transformDirection(v);
+  }
+
+  @Benchmark
+  public Vector transformNormal() {
+    return rigid.transformNormal(v);
+  }
+
+  @Benchmark
+  public Matrix transpose() {
+    return general.transpose();
+  }
+
+  @Benchmark
+  public Matrix invertRigid() {
+    return rigid.invertRigid();
+  }
+
+  @Benchmark
+  public Matrix invertFull() {
+    return general.invertFull();
+  }
+
+  @Benchmark
+  public float[] asArray() {
+    return general.asArray();
+  }
+
+  @Benchmark
+  public FloatBuffer asBuffer() {
+    return general.asBuffer();
+  }
+
+  @Benchmark
+  public FloatBuffer fillBuffer() {
+    buffer.clear();
+    general.fillBuffer(buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public Matrix getRotation() {
+    return rigid.getRotation();
+  }
+
+  @Benchmark
+  public Matrix getTranslation() {
+    return rigid.getTranslation();
+  }
+
+  @Benchmark
+  public Vector getPosition() {
+    return rigid.getPosition();
+  }
+
+  @Benchmark
+  public boolean equalsEpsilon() {
+    return general.equals(rigid, 1e-5f);
+  }
+}
@@ -0,0 +1,103 @@
+package ogl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import ogl.vecmathimp.FactoryMutable;
+import ogl.vecmathimp.MutableMatrix;
+import ogl.vecmathimp.MutableQuaternion;
+import ogl.vecmathimp.MutableVector;
+import ogl.vecmathimp.TempPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The destination variants of the mutable vecmath types. With
+ * <code>-prof gc</code> all of these should report zero bytes allocated per
+ * operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutableBenchmark {
+
+  private MutableMatrix rigid, general, dest;
+  private MutableVector v, vdest;
+  private MutableQuaternion a, b, qdest;
+
+  @Setup
+  public void setup() {
+    FactoryMutable vecmath = FactoryMutable.vecmath;
+    rigid = vecmath.translationMatrix(1, 2, 3).mult(
+        vecmath.rotationMatrix(1, 1, 0, 30), new MutableMatrix());
+    general = vecmath.perspectiveMatrix(60, 1.5f, 0.1f, 100).mult(rigid,
+        new MutableMatrix());
+    dest = new MutableMatrix();
+    v = vecmath.vector(1, 2, 3);
+    vdest = new MutableVector();
+    a = vecmath.quaternion(v, 30);
+    b = vecmath.quaternion(vecmath.vector(0, 1, 1), 120);
+    qdest = new MutableQuaternion();
+  }
+
+  @Benchmark
+  public MutableMatrix mult() {
+    return general.mult(rigid, dest);
+  }
+
+  @Benchmark
+  public MutableMatrix invertFull() {
+    return general.invertFull(dest);
+  }
+
+  @Benchmark
+  public MutableMatrix invertRigid() {
+    return rigid.invertRigid(dest);
+  }
+
+  @Benchmark
+  public MutableMatrix lookat() {
+    return dest.setLookat(v, vdest.set(0, 0, 0), FactoryMutable.vecmath.yAxis());
+  }
+
+  @Benchmark
+  public MutableMatrix perspective() {
+    return dest.setPerspective(60, 1.5f, 0.1f, 100);
+  }
+
+  @Benchmark
+  public MutableVector transformPoint() {
+    return general.transformPoint(v, vdest);
+  }
+
+  @Benchmark
+  public MutableVector crossNormalize() {
+    return v.cross(rigid.getPosition(vdest), vdest).normalize(vdest);
+  }
+
+  @Benchmark
+  public MutableQuaternion interpolate() {
+    return a.interpolate(b, 0.3f, qdest);
+  }
+
+  @Benchmark
+  public MutableMatrix tempPool() {
+    TempPool pool = TempPool.get();
+    pool.push();
+    MutableMatrix t = pool.matrix().setRotation(1, 1, 0, 30);
+    general.mult(t, dest);
+    pool.pop();
+    return dest;
+  }
+}
@@ -0,0 +1,70 @@
+package ogl.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import ogl.vecmath.Quaternion;
+import ogl.vecmathimp.FactoryMutable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every operation of <code>ogl.vecmath.Quaternion</code>. The
+ * <code>Factory</code> interface has no quaternion constructor, so only the
+ * quaternions of <code>FactoryMutable</code> are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuaternionBenchmark {
+
+  private Quaternion a, b;
+
+  @Setup
+  public void setup() {
+    FactoryMutable vecmath = FactoryMutable.vecmath;
+    a = vecmath.quaternion(vecmath.vector(1, 1, 0), 30);
+    b = vecmath.quaternion(vecmath.vector(0, 1, 1), 120);
+  }
+
+  @Benchmark
+  public Quaternion negate() {
+    return a.negate();
+  }
+
+  @Benchmark
+  public Quaternion conjugate() {
+    return a.conjugate();
+  }
+
+  @Benchmark
+  public Quaternion mul() {
+    return a.mul(b);
+  }
+
+  @Benchmark
+  public Quaternion inverse() {
+    return a.inverse();
+  }
+
+  @Benchmark
+  public Quaternion normalize() {
+    return a.normalize();
+  }
+
+  @Benchmark
+  public Quaternion interpolate() {
+    return a.interpolate(b, 0.3f);
+  }
+}
@@ -0,0 +1,101 @@
+package ogl.bench;
+
+import icg.rendering.LineRasterizer;
+import icg.rendering.PixelBuffer;
+import icg.rendering.TriangleRasterizer;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Draw a frame of random triangles into a 1920x1080 int raster, once as
+ * outlines through <code>LineRasterizer</code> and <code>PixelBuffer</code>
+ * (the path <code>RotatingTriangle</code> used before) and once filled with
+ * <code>TriangleRasterizer</code>. Scores are per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriangleBenchmark {
+
+  static final int WIDTH = 1920, HEIGHT = 1080;
+
+  @Param({ "1000", "20000" })
+  public int triangles;
+
+  /**
+   * Largest extent of a triangle in pixels.
+   */
+  @Param({ "16", "128" })
+  public int size;
+
+  private float[] vertices;
+  private int[] colors;
+  private int[] pixels;
+  private PixelBuffer buffer;
+  private TriangleRasterizer rasterizer;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    vertices = new float[6 * triangles];
+    colors = new int[triangles];
+    for (int t = 0; t != triangles; t++) {
+      float x = random.nextFloat() * (WIDTH - size);
+      float y = random.nextFloat() * (HEIGHT - size);
+      for (int v = 0; v != 3; v++) {
+        vertices[6 * t + 2 * v] = x + random.nextFloat() * size;
+        vertices[6 * t + 2 * v + 1] = y + random.nextFloat() * size;
+      }
+      colors[t] = 0xff000000 | random.nextInt();
+    }
+    pixels = new int[WIDTH * HEIGHT];
+    buffer = new PixelBuffer();
+    rasterizer = new TriangleRasterizer(pixels, 0, WIDTH, WIDTH, HEIGHT);
+  }
+
+  @Benchmark
+  public int[] outline() {
+    float[] v = vertices;
+    buffer.reset();
+    for (int t = 0; t != triangles; t++) {
+      int i = 6 * t;
+      buffer.setColor(colors[t]);
+      LineRasterizer.dda(v[i], v[i + 1], v[i + 2], v[i + 3], WIDTH, HEIGHT,
+          buffer);
+      LineRasterizer.dda(v[i + 2], v[i + 3], v[i + 4], v[i + 5], WIDTH,
+          HEIGHT, buffer);
+      LineRasterizer.dda(v[i + 4], v[i + 5], v[i], v[i + 1], WIDTH, HEIGHT,
+          buffer);
+    }
+    for (int p = 0; p != buffer.size(); p++)
+      pixels[buffer.y(p) * WIDTH + buffer.x(p)] = buffer.color(p);
+    return pixels;
+  }
+
+  @Benchmark
+  public int[] fill() {
+    float[] v = vertices;
+    for (int t = 0; t != triangles; t++) {
+      int i = 6 * t;
+      rasterizer.fill(v[i], v[i + 1], v[i + 2], v[i + 3], v[i + 4], v[i + 5],
+          colors[t]);
+    }
+    return pixels;
+  }
+}
@@ -0,0 +1,115 @@
+package ogl.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import ogl.vecmath.Factory;
+import ogl.vecmath.Vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every operation of <code>ogl.vecmath.Vector</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+
+  @Param({ "ogl.vecmathimp.FactoryMutable" })
+  public String factory;
+
+  private Vector a, b;
+  private FloatBuffer buffer;
+
+  @Setup
+  public void setup() {
+    Factory vecmath = Factories.load(factory);
+    a = vecmath.vector(1, 2, 3);
+    b = vecmath.vector(-3, 0.5f, 2);
+    buffer = ByteBuffer.allocateDirect(vecmath.vectorSize() * 4)
+        .order(ByteOrder.nativeOrder()).asFloatBuffer();
+  }
+
+  @Benchmark
+  public Vector add() {
+    return a.add(b);
+  }
+
+  @Benchmark
+  public Vector sub() {
+    return a.sub(b);
+  }
+
+  @Benchmark
+  public Vector multScalar() {
+    return a.mult(0.5f);
+  }
+
+  @Benchmark
+  public Vector multVector() {
+    return a.mult(b);
+  }
+
+  @Benchmark
+  public float length() {
+    return a.length();
+  }
+
+  @Benchmark
+  public Vector normalize() {
+    return a.normalize();
+  }
+
+  @Benchmark
+  public float dot() {
+    return a.dot(b);
+  }
+
+  @Benchmark
+  public Vector cross() {
+    return a.cross(b);
+  }
+
+  @Benchmark
+  public float[] asArray() {
+    return a.asArray();
+  }
+
+  @Benchmark
+  public FloatBuffer asBuffer() {
+    return a.asBuffer();
+  }
+
+  @Benchmark
+  public FloatBuffer fillBuffer() {
+    buffer.clear();
+    a.fillBuffer(buffer);
+    return buffer;
+  }
+
+  @Benchmark
+  public boolean equalsVector() {
+    return a.equals(b);
+  }
+
+  @Benchmark
+  public int compareTo() {
+    return a.compareTo(b);
+  }
+}
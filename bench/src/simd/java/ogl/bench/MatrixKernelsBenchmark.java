@@ -0,0 +1,81 @@
+package ogl.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import ogl.vecmathimp.MatrixKernels;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare the scalar and the Vector API implementations of
+ * <code>MatrixKernels</code>. Only built on JDK 16 and later.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class MatrixKernelsBenchmark {
+
+  static final int POINTS = 4096;
+
+  @Param({ "scalar", "simd" })
+  public String kernels;
+
+  private MatrixKernels k;
+  private float[] a, b, dest;
+  private float[] xs, ys, zs, dxs, dys, dzs;
+
+  @Setup
+  public void setup() {
+    k = MatrixKernels.forName(kernels);
+    Random random = new Random(42);
+    a = new float[16];
+    b = new float[16];
+    dest = new float[16];
+    for (int i = 0; i != 16; i++) {
+      a[i] = random.nextFloat();
+      b[i] = random.nextFloat();
+    }
+    xs = new float[POINTS];
+    ys = new float[POINTS];
+    zs = new float[POINTS];
+    dxs = new float[POINTS];
+    dys = new float[POINTS];
+    dzs = new float[POINTS];
+    for (int i = 0; i != POINTS; i++) {
+      xs[i] = random.nextFloat();
+      ys[i] = random.nextFloat();
+      zs[i] = random.nextFloat();
+    }
+  }
+
+  @Benchmark
+  public float[] mult() {
+    k.mult(a, b, dest);
+    return dest;
+  }
+
+  @Benchmark
+  public boolean invert() {
+    return k.invert(a, dest);
+  }
+
+  @Benchmark
+  public float[] transformPoints() {
+    k.transform(a, 1, xs, ys, zs, 0, POINTS, dxs, dys, dzs);
+    return dxs;
+  }
+}
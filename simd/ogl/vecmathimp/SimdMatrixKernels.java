@@ -0,0 +1,150 @@
+package ogl.vecmathimp;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import ogl.vecmath.BatchTransform;
+
+/**
+ * Implementation of <code>MatrixKernels</code> on top of the Java Vector API.
+ * Matrix columns map to 128-bit vectors of four floats; batch transforms use
+ * the widest species of the machine (256 bits on AVX2). This class needs JDK
+ * 16 or later and <code>--add-modules jdk.incubator.vector</code> at compile
+ * and run time. It is loaded reflectively by <code>MatrixKernels</code>, which
+ * falls back to the scalar kernels if it cannot be loaded.
+ */
+final class SimdMatrixKernels extends MatrixKernels {
+
+  private static final VectorSpecies<Float> F128 = FloatVector.SPECIES_128;
+  private static final VectorSpecies<Float> FMAX = FloatVector.SPECIES_PREFERRED;
+
+  // Gather pattern for the cofactor lanes: column 1, 0, 3, 2 of one row.
+  private static final int[] SWAPPED_COLUMNS = { 4, 0, 12, 8 };
+
+  // Lanes 2 and 3 of the cofactor products use the upper 2x2 determinants.
+  private static final VectorMask<Float> UPPER = VectorMask.fromValues(F128,
+      false, false, true, true);
+
+  private static final FloatVector PLUS_MINUS = FloatVector.fromArray(F128,
+      new float[] { 1, -1, 1, -1 }, 0);
+
+  SimdMatrixKernels() {
+    // Fail early if the platform has no usable 128-bit float vectors.
+    if (F128.length() != 4)
+      throw new UnsupportedOperationException("No 4 lane float vectors");
+  }
+
+  @Override
+  public String name() {
+    return "simd";
+  }
+
+  @Override
+  public void mult(float[] a, float[] b, float[] dest) {
+    FloatVector a0 = FloatVector.fromArray(F128, a, 0);
+    FloatVector a1 = FloatVector.fromArray(F128, a, 4);
+    FloatVector a2 = FloatVector.fromArray(F128, a, 8);
+    FloatVector a3 = FloatVector.fromArray(F128, a, 12);
+
+    // Column j of the product is a * (column j of b). Compute all columns
+    // before storing so that dest may alias b.
+    FloatVector r0 = column(a0, a1, a2, a3, b, 0);
+    FloatVector r1 = column(a0, a1, a2, a3, b, 4);
+    FloatVector r2 = column(a0, a1, a2, a3, b, 8);
+    FloatVector r3 = column(a0, a1, a2, a3, b, 12);
+
+    r0.intoArray(dest, 0);
+    r1.intoArray(dest, 4);
+    r2.intoArray(dest, 8);
+    r3.intoArray(dest, 12);
+  }
+
+  private static FloatVector column(FloatVector a0, FloatVector a1,
+      FloatVector a2, FloatVector a3, float[] b, int o) {
+    return a0.mul(b[o]).add(a1.mul(b[o + 1])).add(a2.mul(b[o + 2]))
+        .add(a3.mul(b[o + 3]));
+  }
+
+  @Override
+  public boolean invert(float[] m, float[] dest) {
+    float m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+    float m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+    float m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+    float m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+
+    // 2x2 sub-determinants of the first (s) and last (c) two columns.
+    float s0 = m0 * m5 - m4 * m1;
+    float s1 = m0 * m6 - m4 * m2;
+    float s2 = m0 * m7 - m4 * m3;
+    float s3 = m1 * m6 - m5 * m2;
+    float s4 = m1 * m7 - m5 * m3;
+    float s5 = m2 * m7 - m6 * m3;
+
+    float c5 = m10 * m15 - m14 * m11;
+    float c4 = m9 * m15 - m13 * m11;
+    float c3 = m9 * m14 - m13 * m10;
+    float c2 = m8 * m15 - m12 * m11;
+    float c1 = m8 * m14 - m12 * m10;
+    float c0 = m8 * m13 - m12 * m9;
+
+    float det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+    if (det == 0)
+      return false;
+
+    // Row k of m with its columns in the order 1, 0, 3, 2.
+    FloatVector p0 = FloatVector.fromArray(F128, m, 0, SWAPPED_COLUMNS, 0);
+    FloatVector p1 = FloatVector.fromArray(F128, m, 1, SWAPPED_COLUMNS, 0);
+    FloatVector p2 = FloatVector.fromArray(F128, m, 2, SWAPPED_COLUMNS, 0);
+    FloatVector p3 = FloatVector.fromArray(F128, m, 3, SWAPPED_COLUMNS, 0);
+
+    // (ck, ck, sk, sk)
+    FloatVector d0 = FloatVector.broadcast(F128, c0).blend(s0, UPPER);
+    FloatVector d1 = FloatVector.broadcast(F128, c1).blend(s1, UPPER);
+    FloatVector d2 = FloatVector.broadcast(F128, c2).blend(s2, UPPER);
+    FloatVector d3 = FloatVector.broadcast(F128, c3).blend(s3, UPPER);
+    FloatVector d4 = FloatVector.broadcast(F128, c4).blend(s4, UPPER);
+    FloatVector d5 = FloatVector.broadcast(F128, c5).blend(s5, UPPER);
+
+    FloatVector even = PLUS_MINUS.mul(1 / det);
+    FloatVector odd = even.neg();
+
+    FloatVector r0 = p1.mul(d5).sub(p2.mul(d4)).add(p3.mul(d3)).mul(even);
+    FloatVector r1 = p0.mul(d5).sub(p2.mul(d2)).add(p3.mul(d1)).mul(odd);
+    FloatVector r2 = p0.mul(d4).sub(p1.mul(d2)).add(p3.mul(d0)).mul(even);
+    FloatVector r3 = p0.mul(d3).sub(p1.mul(d1)).add(p2.mul(d0)).mul(odd);
+
+    r0.intoArray(dest, 0);
+    r1.intoArray(dest, 4);
+    r2.intoArray(dest, 8);
+    r3.intoArray(dest, 12);
+    return true;
+  }
+
+  @Override
+  public void transform(float[] m, float w, float[] xs, float[] ys,
+      float[] zs, int offset, int count, float[] destXs, float[] destYs,
+      float[] destZs) {
+    final float m00 = m[0], m01 = m[1], m02 = m[2];
+    final float m10 = m[4], m11 = m[5], m12 = m[6];
+    final float m20 = m[8], m21 = m[9], m22 = m[10];
+    final float m30 = m[12] * w, m31 = m[13] * w, m32 = m[14] * w;
+
+    final int end = offset + count;
+    final int vectorEnd = offset + FMAX.loopBound(count);
+    int i = offset;
+    for (; i < vectorEnd; i += FMAX.length()) {
+      FloatVector x = FloatVector.fromArray(FMAX, xs, i);
+      FloatVector y = FloatVector.fromArray(FMAX, ys, i);
+      FloatVector z = FloatVector.fromArray(FMAX, zs, i);
+      x.mul(m00).add(y.mul(m10)).add(z.mul(m20)).add(m30)
+          .intoArray(destXs, i);
+      x.mul(m01).add(y.mul(m11)).add(z.mul(m21)).add(m31)
+          .intoArray(destYs, i);
+      x.mul(m02).add(y.mul(m12)).add(z.mul(m22)).add(m32)
+          .intoArray(destZs, i);
+    }
+    // The remainder uses the scalar kernel shared with ScalarMatrixKernels.
+    BatchTransform.transform(m, w, xs, ys, zs, i, end - i, destXs, destYs,
+        destZs);
+  }
+}
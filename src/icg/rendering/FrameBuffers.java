@@ -0,0 +1,55 @@
+package icg.rendering;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Three frame images shared between a render thread and the Swing event
+ * dispatch thread. The render thread draws into the back image and publishes
+ * it when it is complete; the event dispatch thread paints the front image,
+ * which is swapped with the most recently published one first. Neither thread
+ * ever waits for the other: the locks only guard the swaps.
+ */
+final class FrameBuffers {
+	private BufferedImage front, ready, back;
+
+	/**
+	 * true, if ready holds a frame that has not been shown yet
+	 */
+	private boolean fresh;
+
+	/**
+	 * returns the image to render the next frame into, called by the render thread
+	 * @param width the width of the frame
+	 * @param height the height of the frame
+	 * @return the back image, of type TYPE_INT_RGB
+	 */
+	synchronized BufferedImage back(int width, int height) {
+		if (back == null || back.getWidth() != width || back.getHeight() != height)
+			back = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		return back;
+	}
+
+	/**
+	 * publishes the back image as the next frame to show, called by the render thread
+	 */
+	synchronized void publish() {
+		BufferedImage t = ready;
+		ready = back;
+		back = t;
+		fresh = true;
+	}
+
+	/**
+	 * returns the newest complete frame, called by the event dispatch thread
+	 * @return the front image, or null if no frame has been published yet
+	 */
+	synchronized BufferedImage front() {
+		if (fresh) {
+			BufferedImage t = front;
+			front = ready;
+			ready = t;
+			fresh = false;
+		}
+		return front;
+	}
+}
@@ -0,0 +1,51 @@
+package icg.rendering;
+
+import java.util.Arrays;
+
+/**
+ * Collects frame times and summarizes them once per reporting interval as
+ * frames per second and frame time percentiles.
+ */
+final class FrameStats {
+	private final long interval;
+	private long[] samples = new long[256];
+	private int count;
+	private long start = System.nanoTime();
+
+	/**
+	 * @param intervalMillis the length of a reporting interval in milliseconds
+	 */
+	FrameStats(long intervalMillis) {
+		interval = intervalMillis * 1000000L;
+	}
+
+	/**
+	 * records one frame
+	 * @param nanos the time it took to produce the frame
+	 * @return a summary of the interval if it is over, null otherwise
+	 */
+	String frame(long nanos) {
+		if (count == samples.length)
+			samples = Arrays.copyOf(samples, 2 * count);
+		samples[count++] = nanos;
+
+		long now = System.nanoTime();
+		if (now - start < interval)
+			return null;
+
+		Arrays.sort(samples, 0, count);
+		String report = String.format("%.1f fps, frame time p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms",
+				count * 1e9 / (now - start), percentile(0.50), percentile(0.95),
+				percentile(0.99), samples[count - 1] / 1e6);
+		count = 0;
+		start = now;
+		return report;
+	}
+
+	/**
+	 * @return the percentile p of the sorted samples in milliseconds
+	 */
+	private double percentile(double p) {
+		return samples[(int) Math.min(count - 1, Math.floor(p * count))] / 1e6;
+	}
+}
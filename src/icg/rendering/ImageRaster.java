@@ -0,0 +1,41 @@
+package icg.rendering;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Direct access to the int array behind a TYPE_INT_RGB or TYPE_INT_ARGB image.
+ * Pixel (x, y) is stored at <code>pixels[base + y * stride + x]</code>.
+ */
+final class ImageRaster {
+	final int[] pixels;
+	final int base, stride;
+	final int width, height;
+
+	ImageRaster(int[] pixels, int base, int stride, int width, int height) {
+		this.pixels = pixels;
+		this.base = base;
+		this.stride = stride;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * @param img the image
+	 * @return the raster of the image, or null if the image does not store one int per pixel
+	 */
+	static ImageRaster of(BufferedImage img) {
+		int type = img.getType();
+		WritableRaster raster = img.getRaster();
+		if ((type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB)
+				|| !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel))
+			return null;
+		DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+		int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+		int base = buffer.getOffset() - raster.getSampleModelTranslateY() * stride
+				- raster.getSampleModelTranslateX();
+		return new ImageRaster(buffer.getData(), base, stride, img.getWidth(), img.getHeight());
+	}
+}
@@ -34,15 +34,54 @@ public abstract class Line implements Painter{
 		return null;
 	}
 
+	/**
+	 * Adds the pixels of the line to a buffer.
+	 * This is the allocation free version of getPixels 
+	 * @param width width of the image
+	 * @param height height of the image
+	 * @param out receives the pixels of the line
+	 * @return true, if the line was rasterized, false if this is not supported
+	 */
+	public boolean rasterize(int width, int height, PixelBuffer out){
+		return false;
+	}
+
+	/**
+	 * Adds the pixels of the line that lie in a band of rows of the image to a buffer.
+	 * The pixels are the same as those rasterize adds in these rows
+	 * @param width width of the image
+	 * @param y0 the first row of the band
+	 * @param rows the number of rows in the band
+	 * @param out receives the pixels of the line, in image coordinates
+	 * @return true, if the line was rasterized, false if this is not supported
+	 */
+	public boolean rasterize(int width, int y0, int rows, PixelBuffer out){
+		return false;
+	}
+
 	/**
 	 * fills the given image
 	 * @param img the image to be filled
 	 */
 	public void fillImage(BufferedImage img){
+		fillImage(img, new PixelBuffer());
+	}
+
+	/**
+	 * fills the given image
+	 * @param img the image to be filled
+	 * @param buffer a buffer to collect the pixels in, its contents are replaced
+	 */
+	public void fillImage(BufferedImage img, PixelBuffer buffer){
 		int width = img.getWidth(), height = img.getHeight();
 		ArrayList<Pixel> pixels = null;
+		buffer.reset();
+		//fastest version
+		if (rasterize(width, height, buffer)){
+			buffer.writeTo(img);
+		}
 		//fast version
-		if ((pixels = getPixels(width, height)) != null){
+		else if ((pixels = getPixels(width, height)) != null){
 			for (Pixel pixel : pixels){
 				if (pixel.x >= 0 && pixel.x < width && pixel.y >= 0 && pixel.y < height)
 					img.setRGB(pixel.x, pixel.y, pixel.color.toAwtColor());
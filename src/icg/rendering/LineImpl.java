@@ -5,13 +5,50 @@ import java.util.ArrayList;
 import ogl.vecmath.*;
 
 public class LineImpl extends Line {
+	/**
+	 * the algorithms available to rasterize a line
+	 */
+	public enum Algorithm {
+		/**
+		 * integer Bresenham, vertices are rounded to the nearest pixel
+		 */
+		BRESENHAM,
+		/**
+		 * DDA that keeps the subpixel position of the vertices
+		 */
+		DDA
+	}
+
+	/**
+	 * the color of the line
+	 */
+	protected Color color;
+
+	/**
+	 * the algorithm used by getPixels
+	 */
+	protected Algorithm algorithm;
+
 	/**
 	 * constructor, sets vertices of this line
 	 * @param p1 the first vertex
 	 * @param p2 the second vertex
 	 */
 	public LineImpl(Vector p1, Vector p2) {
+		this(p1, p2, MyMathFactory.color(1, 1, 1), Algorithm.DDA);
+	}
+
+	/**
+	 * constructor, sets vertices, color and rasterization algorithm of this line
+	 * @param p1 the first vertex
+	 * @param p2 the second vertex
+	 * @param color the color of the line
+	 * @param algorithm the algorithm used to find the pixels of the line
+	 */
+	public LineImpl(Vector p1, Vector p2, Color color, Algorithm algorithm) {
 		super(p1, p2);
+		this.color = color;
+		this.algorithm = algorithm;
 	}
 
 
@@ -23,7 +60,10 @@ public class LineImpl extends Line {
 	 * @return a color if the pixel is on the line, null otherwise
 	 */
 	public Color pixelColorAt(int fx, int fy, int width, int height) {
-		// TODO: implement me
+		// The test matches the DDA. Bresenham rounds the vertices first and may
+		// differ by a pixel.
+		if (LineRasterizer.ddaContains(p1.x(), p1.y(), p2.x(), p2.y(), fx, fy))
+			return color;
 		return null;
 	}
 	
@@ -33,6 +73,39 @@ public class LineImpl extends Line {
 	 */
 	@Override
 	public ArrayList<Pixel> getPixels(int width, int height){
-		return null;
+		PixelBuffer buffer = new PixelBuffer();
+		rasterize(width, height, buffer);
+		ArrayList<Pixel> pixels = new ArrayList<Pixel>(buffer.size());
+		for (int i = 0; i != buffer.size(); i++)
+			pixels.add(new Pixel(buffer.x(i), buffer.y(i), color));
+		return pixels;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see icg.rendering.Line#rasterize(int, int, icg.rendering.PixelBuffer)
+	 */
+	@Override
+	public boolean rasterize(int width, int height, PixelBuffer out){
+		out.setColor(color.toAwtColor());
+		if (algorithm == Algorithm.BRESENHAM)
+			LineRasterizer.bresenham(p1.x(), p1.y(), p2.x(), p2.y(), width, height, out);
+		else
+			LineRasterizer.dda(p1.x(), p1.y(), p2.x(), p2.y(), width, height, out);
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see icg.rendering.Line#rasterize(int, int, int, icg.rendering.PixelBuffer)
+	 */
+	@Override
+	public boolean rasterize(int width, int y0, int rows, PixelBuffer out){
+		out.setColor(color.toAwtColor());
+		if (algorithm == Algorithm.BRESENHAM)
+			LineRasterizer.bresenham(p1.x(), p1.y(), p2.x(), p2.y(), width, y0, rows, out);
+		else
+			LineRasterizer.dda(p1.x(), p1.y(), p2.x(), p2.y(), width, y0, rows, out);
+		return true;
 	}
 }
@@ -0,0 +1,327 @@
+package icg.rendering;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Scan converts line segments into the pixels of an image. Pixel centers lie
+ * on integer coordinates. Lines are clipped against the image bounds before
+ * they are rasterized, so the cost is proportional to the visible length of
+ * the line, not to its full length or to the image size. End points more than
+ * 2^27 pixels outside of the image are first moved along the line to that
+ * distance, with exact arithmetic, so arbitrarily long lines are drawn
+ * correctly. Lines with a NaN or infinite end point are not drawn. Images must
+ * be smaller than 2^28 pixels in each direction.
+ */
+public final class LineRasterizer {
+
+	/**
+	 * receives the pixels of a line
+	 */
+	public interface Plotter {
+		/**
+		 * called once for every pixel of the line, in order from the first to the last vertex
+		 * @param x the x coordinate of the pixel, within the image
+		 * @param y the y coordinate of the pixel, within the image
+		 */
+		void plot(int x, int y);
+	}
+
+	private LineRasterizer() {
+	}
+
+	/**
+	 * Rasterizes a line with the integer Bresenham algorithm. The end points are
+	 * rounded to the nearest pixel first.
+	 * @param x0 x coordinate of the first vertex
+	 * @param y0 y coordinate of the first vertex
+	 * @param x1 x coordinate of the second vertex
+	 * @param y1 y coordinate of the second vertex
+	 * @param width width of the image
+	 * @param height height of the image
+	 * @param plotter receives the pixels of the line that are inside the image
+	 */
+	public static void bresenham(float x0, float y0, float x1, float y1,
+			int width, int height, Plotter plotter) {
+		bresenham(x0, y0, x1, y1, width, 0, height, plotter);
+	}
+
+	/**
+	 * Rasterizes the part of a line that lies in a band of rows of the image with
+	 * the integer Bresenham algorithm. The pixels are the same that
+	 * {@link #bresenham(float, float, float, float, int, int, Plotter)} plots in
+	 * these rows.
+	 * @param x0 x coordinate of the first vertex
+	 * @param y0 y coordinate of the first vertex
+	 * @param x1 x coordinate of the second vertex
+	 * @param y1 y coordinate of the second vertex
+	 * @param width width of the image
+	 * @param top the first row of the band
+	 * @param rows the number of rows in the band
+	 * @param plotter receives the pixels of the line that are inside the band
+	 */
+	public static void bresenham(float x0, float y0, float x1, float y1,
+			int width, int top, int rows, Plotter plotter) {
+		double[] e = band(ends(x0, y0, x1, y1), top);
+		if (e == null)
+			return;
+		plotter = shift(plotter, top);
+		long ax = round(e[0]), ay = round(e[1]), bx = round(e[2]), by = round(e[3]);
+		if (Math.abs(bx - ax) >= Math.abs(by - ay))
+			bresenham(ax, ay, bx, by, width, rows, false, plotter);
+		else
+			bresenham(ay, ax, by, bx, rows, width, true, plotter);
+	}
+
+	// Images are smaller than MAX_SIZE. End points further than MARGIN outside
+	// of 0 to MAX_SIZE are moved along the line to that range, so all
+	// coordinates stay below 2^29 and the products in bresenham below 2^61.
+	private static final long MAX_SIZE = 1 << 28, MARGIN = 1 << 27;
+
+	/**
+	 * @return the end points of a line, x0, y0, x1, y1, moved into the range
+	 *         -MARGIN to MAX_SIZE + MARGIN, or null if the line misses it or an
+	 *         end point is NaN or infinite
+	 */
+	private static double[] ends(float x0, float y0, float x1, float y1) {
+		if (inside(x0) && inside(y0) && inside(x1) && inside(y1))
+			return new double[] { x0, y0, x1, y1 };
+		if (!Float.isFinite(x0) || !Float.isFinite(y0) || !Float.isFinite(x1) || !Float.isFinite(y1))
+			return null;
+		// Liang-Barsky clipping. The end points can be far apart, so this is
+		// done with exact arithmetic; it only runs for such lines.
+		BigDecimal ax = new BigDecimal(x0), ay = new BigDecimal(y0);
+		BigDecimal dx = new BigDecimal(x1).subtract(ax);
+		BigDecimal dy = new BigDecimal(y1).subtract(ay);
+		BigDecimal lo = BigDecimal.valueOf(-MARGIN), hi = BigDecimal.valueOf(MAX_SIZE + MARGIN);
+		// t = num / den with den > 0, for the range of the line inside
+		BigDecimal[] t0 = { BigDecimal.ZERO, BigDecimal.ONE };
+		BigDecimal[] t1 = { BigDecimal.ONE, BigDecimal.ONE };
+		// the half planes p * t <= q
+		BigDecimal[][] planes = { { dx.negate(), ax.subtract(lo) }, { dx, hi.subtract(ax) },
+				{ dy.negate(), ay.subtract(lo) }, { dy, hi.subtract(ay) } };
+		for (BigDecimal[] plane : planes) {
+			BigDecimal p = plane[0], q = plane[1];
+			if (p.signum() == 0) {
+				if (q.signum() < 0)
+					return null;
+			} else if (p.signum() < 0) {
+				BigDecimal[] r = { q.negate(), p.negate() };
+				if (compare(r, t0) > 0)
+					t0 = r;
+			} else {
+				BigDecimal[] r = { q, p };
+				if (compare(r, t1) < 0)
+					t1 = r;
+			}
+		}
+		if (compare(t0, t1) > 0)
+			return null;
+		return new double[] { at(ax, dx, t0), at(ay, dy, t0), at(ax, dx, t1), at(ay, dy, t1) };
+	}
+
+	/**
+	 * Moves the end points up so that the band starting at row top becomes an
+	 * image of its own. The end points are clipped against the whole image
+	 * before, so every band sees the same line and the bands together get the
+	 * pixels of the whole image.
+	 */
+	private static double[] band(double[] e, int top) {
+		if (e != null && top != 0) {
+			e[1] -= top;
+			e[3] -= top;
+		}
+		return e;
+	}
+
+	// Moves the pixels of a band back to the rows of the image.
+	private static Plotter shift(Plotter plotter, int top) {
+		return top == 0 ? plotter : (x, y) -> plotter.plot(x, y + top);
+	}
+
+	private static boolean inside(float c) {
+		return c >= -MARGIN && c <= MAX_SIZE + MARGIN;
+	}
+
+	private static int compare(BigDecimal[] a, BigDecimal[] b) {
+		return a[0].multiply(b[1]).compareTo(b[0].multiply(a[1]));
+	}
+
+	// a + d * t
+	private static double at(BigDecimal a, BigDecimal d, BigDecimal[] t) {
+		return a.add(d.multiply(t[0]).divide(t[1], MathContext.DECIMAL128)).doubleValue();
+	}
+
+	/**
+	 * Bresenham along the major axis u with minor axis v. If swap is true, u is
+	 * the image y axis.
+	 */
+	private static void bresenham(long u0, long v0, long u1, long v1, int uSize,
+			int vSize, boolean swap, Plotter plotter) {
+		long du = Math.abs(u1 - u0), dv = Math.abs(v1 - v0);
+		int su = u1 >= u0 ? 1 : -1, sv = v1 >= v0 ? 1 : -1;
+
+		// The pixel at step k is (u0 + su * k, v0 + sv * floor((2 k dv + du) / 2 du)).
+		// Find the steps that stay inside the image along u ...
+		long first = 0, last = du;
+		first = Math.max(first, su > 0 ? -u0 : u0 - (uSize - 1));
+		last = Math.min(last, su > 0 ? uSize - 1 - u0 : u0);
+		// ... and along v. v grows monotonically with k, so each image edge
+		// cuts off a prefix or a suffix of the steps.
+		if (dv != 0) {
+			long vFirst = sv > 0 ? -v0 : v0 - (vSize - 1);
+			long vLast = sv > 0 ? vSize - 1 - v0 : v0;
+			// smallest k with floor((2 k dv + du) / 2 du) >= vFirst
+			if (vFirst > 0)
+				first = Math.max(first, ceilDiv(2 * vFirst * du - du, 2L * dv));
+			// largest k with floor((2 k dv + du) / 2 du) <= vLast
+			if (vLast < 0)
+				return;
+			last = Math.min(last, Math.floorDiv(2 * vLast * du + du - 1, 2L * dv));
+		} else if (v0 < 0 || v0 >= vSize) {
+			return;
+		}
+		if (first > last)
+			return;
+
+		// Start the incremental algorithm at the first visible step.
+		// The visible steps are inside the image, so u and v fit into an int.
+		int u = (int) (u0 + su * first);
+		long num = 2 * first * dv + du;
+		long twoDu = Math.max(2L * du, 1);
+		int v = (int) (v0 + sv * (num / twoDu));
+		long err = num % twoDu - twoDu;
+		for (long k = first; k <= last; k++) {
+			if (swap)
+				plotter.plot(v, u);
+			else
+				plotter.plot(u, v);
+			u += su;
+			err += 2L * dv;
+			if (err >= 0) {
+				v += sv;
+				err -= 2L * du;
+			}
+		}
+	}
+
+	/**
+	 * Rasterizes a line with a DDA that keeps the exact subpixel position of both
+	 * vertices. Along the major axis, every pixel between the two rounded end
+	 * points is set; along the minor axis, the pixel nearest to the exact line is
+	 * chosen.
+	 * @param x0 x coordinate of the first vertex
+	 * @param y0 y coordinate of the first vertex
+	 * @param x1 x coordinate of the second vertex
+	 * @param y1 y coordinate of the second vertex
+	 * @param width width of the image
+	 * @param height height of the image
+	 * @param plotter receives the pixels of the line that are inside the image
+	 */
+	public static void dda(float x0, float y0, float x1, float y1, int width,
+			int height, Plotter plotter) {
+		dda(x0, y0, x1, y1, width, 0, height, plotter);
+	}
+
+	/**
+	 * Rasterizes the part of a line that lies in a band of rows of the image with
+	 * the DDA. The pixels are the same that
+	 * {@link #dda(float, float, float, float, int, int, Plotter)} plots in these
+	 * rows.
+	 * @param x0 x coordinate of the first vertex
+	 * @param y0 y coordinate of the first vertex
+	 * @param x1 x coordinate of the second vertex
+	 * @param y1 y coordinate of the second vertex
+	 * @param width width of the image
+	 * @param top the first row of the band
+	 * @param rows the number of rows in the band
+	 * @param plotter receives the pixels of the line that are inside the band
+	 */
+	public static void dda(float x0, float y0, float x1, float y1, int width,
+			int top, int rows, Plotter plotter) {
+		double[] e = band(ends(x0, y0, x1, y1), top);
+		if (e == null)
+			return;
+		plotter = shift(plotter, top);
+		if (Math.abs(e[2] - e[0]) >= Math.abs(e[3] - e[1]))
+			dda(e[0], e[1], e[2], e[3], width, rows, false, plotter);
+		else
+			dda(e[1], e[0], e[3], e[2], rows, width, true, plotter);
+	}
+
+	/**
+	 * DDA along the major axis u with minor axis v. If swap is true, u is the
+	 * image y axis.
+	 */
+	private static void dda(double u0, double v0, double u1, double v1, int uSize,
+			int vSize, boolean swap, Plotter plotter) {
+		int su = u1 >= u0 ? 1 : -1;
+		int uStart = (int) round(u0), uEnd = (int) round(u1);
+		double slope = u1 == u0 ? 0 : (v1 - v0) / (u1 - u0);
+
+		// Clip the major axis against the image ...
+		int lo = 0, hi = uSize - 1;
+		// ... and the part of the minor axis that rounds into the image.
+		if (slope != 0) {
+			double a = u0 + (-0.5 - v0) / slope, b = u0 + (vSize - 0.5 - v0) / slope;
+			lo = Math.max(lo, (int) Math.floor(Math.min(a, b)));
+			hi = Math.min(hi, (int) Math.ceil(Math.max(a, b)));
+		}
+		int first, last;
+		if (su > 0) {
+			first = Math.max(uStart, lo);
+			last = Math.min(uEnd, hi);
+		} else {
+			first = Math.min(uStart, hi);
+			last = Math.max(uEnd, lo);
+		}
+		if ((last - first) * su < 0)
+			return;
+
+		for (int u = first;; u += su) {
+			// Evaluate the line directly instead of accumulating the slope, so
+			// that long lines do not drift.
+			long v = round(v0 + (u - u0) * slope);
+			if (v >= 0 && v < vSize) {
+				if (swap)
+					plotter.plot((int) v, u);
+				else
+					plotter.plot(u, (int) v);
+			}
+			if (u == last)
+				break;
+		}
+	}
+
+	/**
+	 * Decides whether a pixel is set by {@link #dda}.
+	 * @return true, if the pixel is part of the line
+	 */
+	public static boolean ddaContains(float x0, float y0, float x1, float y1,
+			int x, int y) {
+		double[] e = ends(x0, y0, x1, y1);
+		if (e == null)
+			return false;
+		if (Math.abs(e[2] - e[0]) >= Math.abs(e[3] - e[1]))
+			return ddaContainsMajor(e[0], e[1], e[2], e[3], x, y);
+		else
+			return ddaContainsMajor(e[1], e[0], e[3], e[2], y, x);
+	}
+
+	private static boolean ddaContainsMajor(double u0, double v0, double u1,
+			double v1, int u, int v) {
+		long a = round(u0), b = round(u1);
+		if (u < Math.min(a, b) || u > Math.max(a, b))
+			return false;
+		double slope = u1 == u0 ? 0 : (v1 - v0) / (u1 - u0);
+		return round(v0 + (u - u0) * slope) == v;
+	}
+
+	private static long round(double d) {
+		return (long) Math.floor(d + 0.5);
+	}
+
+	private static long ceilDiv(long a, long b) {
+		return -Math.floorDiv(-a, b);
+	}
+}
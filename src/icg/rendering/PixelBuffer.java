@@ -0,0 +1,139 @@
+package icg.rendering;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * A growable list of pixels stored as packed int triples (x, y, ARGB color).
+ * This is the allocation free alternative to a list of {@link Pixel} objects:
+ * keep one buffer, reset it at the start of each frame and let all primitives
+ * rasterize into it.
+ * <p>
+ * As a {@link LineRasterizer.Plotter}, the buffer adds every plotted pixel
+ * with the current color.
+ */
+public final class PixelBuffer implements LineRasterizer.Plotter {
+	/**
+	 * the packed pixels, three ints per pixel
+	 */
+	private int[] data;
+
+	/**
+	 * the number of pixels in the buffer
+	 */
+	private int size;
+
+	/**
+	 * the color used by plot
+	 */
+	private int color = 0xffffffff;
+
+	/**
+	 * creates an empty buffer with room for 1024 pixels
+	 */
+	public PixelBuffer() {
+		this(1024);
+	}
+
+	/**
+	 * creates an empty buffer
+	 * @param capacity the number of pixels the buffer can hold before it grows
+	 */
+	public PixelBuffer(int capacity) {
+		data = new int[3 * Math.max(capacity, 1)];
+	}
+
+	/**
+	 * removes all pixels, keeping the allocated memory
+	 */
+	public void reset() {
+		size = 0;
+	}
+
+	/**
+	 * @return the number of pixels in the buffer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * sets the color for subsequent calls to plot
+	 * @param argb the color as packed ARGB value
+	 */
+	public void setColor(int argb) {
+		color = argb;
+	}
+
+	/**
+	 * adds a pixel
+	 * @param x the x coordinate of the pixel
+	 * @param y the y coordinate of the pixel
+	 * @param argb the color of the pixel as packed ARGB value
+	 */
+	public void add(int x, int y, int argb) {
+		int i = 3 * size;
+		if (i == data.length)
+			data = Arrays.copyOf(data, 2 * data.length);
+		data[i] = x;
+		data[i + 1] = y;
+		data[i + 2] = argb;
+		size++;
+	}
+
+	@Override
+	public void plot(int x, int y) {
+		add(x, y, color);
+	}
+
+	/**
+	 * @param i the index of the pixel
+	 * @return the x coordinate of the pixel
+	 */
+	public int x(int i) {
+		return data[3 * i];
+	}
+
+	/**
+	 * @param i the index of the pixel
+	 * @return the y coordinate of the pixel
+	 */
+	public int y(int i) {
+		return data[3 * i + 1];
+	}
+
+	/**
+	 * @param i the index of the pixel
+	 * @return the color of the pixel as packed ARGB value
+	 */
+	public int color(int i) {
+		return data[3 * i + 2];
+	}
+
+	/**
+	 * Writes all pixels into an image, in the order they were added. Pixels
+	 * outside of the image are skipped. For images of type TYPE_INT_RGB and
+	 * TYPE_INT_ARGB the pixels are stored directly into the raster array,
+	 * otherwise setRGB is used.
+	 * @param img the image to write to
+	 */
+	public void writeTo(BufferedImage img) {
+		int width = img.getWidth(), height = img.getHeight();
+		ImageRaster raster = ImageRaster.of(img);
+		if (raster != null) {
+			int[] pixels = raster.pixels;
+			int base = raster.base, stride = raster.stride;
+			for (int i = 0, end = 3 * size; i != end; i += 3) {
+				int x = data[i], y = data[i + 1];
+				if (x >= 0 && x < width && y >= 0 && y < height)
+					pixels[base + y * stride + x] = data[i + 2];
+			}
+		} else {
+			for (int i = 0, end = 3 * size; i != end; i += 3) {
+				int x = data[i], y = data[i + 1];
+				if (x >= 0 && x < width && y >= 0 && y < height)
+					img.setRGB(x, y, data[i + 2]);
+			}
+		}
+	}
+}
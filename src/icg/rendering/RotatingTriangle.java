@@ -11,6 +11,27 @@ public class RotatingTriangle  extends RotatingTriangleBase{
 	 */
 	protected Vector p1, p2, p3;
 
+	/**
+	 * draw the triangle filled, or only its outline (the default)
+	 */
+	protected boolean filled = false;
+
+	/**
+	 * collects the pixels of the edges, reused for every frame
+	 */
+	private final PixelBuffer pixels = new PixelBuffer();
+
+	/**
+	 * collects the pixels of the edges in a band, one buffer per rendering thread
+	 */
+	private final ThreadLocal<PixelBuffer> bandPixels = ThreadLocal.withInitial(PixelBuffer::new);
+
+	/**
+	 * the rasterizer for filled triangles and the image it draws into
+	 */
+	private TriangleRasterizer rasterizer;
+	private BufferedImage rasterizerImage;
+
 	/**
 	 * constructor setting the vertices of this triangle
 	 * @param p1 vertex 1
@@ -23,6 +44,21 @@ public class RotatingTriangle  extends RotatingTriangleBase{
 		this.p3 = p3;
 	}
 
+	/**
+	 * chooses between drawing the triangle filled and only its outline
+	 * @param filled true to fill the triangle
+	 */
+	public void setFilled(boolean filled) {
+		this.filled = filled;
+	}
+
+	/**
+	 * @return true, if the triangle is drawn filled
+	 */
+	public boolean isFilled() {
+		return filled;
+	}
+
 	/**
 	 * provide a rotation axis
 	 * @return a rotation axis
@@ -54,9 +90,58 @@ public class RotatingTriangle  extends RotatingTriangleBase{
 	 * @param img the image to be filled	  
 	 */
 	public void fillImage(BufferedImage img) {
+		if (filled && ImageRaster.of(img) != null) {
+			if (rasterizerImage != img) {
+				rasterizer = new TriangleRasterizer(img);
+				rasterizerImage = img;
+			}
+			rasterizer.fill(p1, p2, p3, getColor().toAwtColor());
+			return;
+		}
+
+		int width = img.getWidth(), height = img.getHeight();
 		Line[] lines = new Line[]{new LineImpl(p1, p2), new LineImpl(p2, p3), new LineImpl(p3, p1)};
+		pixels.reset();
 		for (Line l : lines)
-			l.fillImage(img);
+			if (!l.rasterize(width, height, pixels))
+				l.fillImage(img);
+		pixels.writeTo(img);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see icg.rendering.RotatingTriangleBase#fillBand(java.awt.image.BufferedImage, int, int)
+	 */
+	@Override
+	public void fillBand(BufferedImage img, int y0, int rows) {
+		ImageRaster raster = ImageRaster.of(img);
+		if (!filled) {
+			// Only the pixels of the edges in the band, written to the rows of the band.
+			int width = img.getWidth();
+			Line[] lines = new Line[]{new LineImpl(p1, p2), new LineImpl(p2, p3), new LineImpl(p3, p1)};
+			PixelBuffer band = bandPixels.get();
+			band.reset();
+			for (Line l : lines)
+				l.rasterize(width, y0, rows, band);
+			band.writeTo(img);
+			return;
+		}
+		if (raster == null) {
+			super.fillBand(img, y0, rows);
+			return;
+		}
+		// Rasterize into the band only, as if it were an image of its own.
+		new TriangleRasterizer(raster.pixels, raster.base + y0 * raster.stride, raster.stride,
+				raster.width, rows).fill(p1.x(), p1.y() - y0, p2.x(), p2.y() - y0, p3.x(),
+				p3.y() - y0, getColor().toAwtColor());
+	}
+
+	/**
+	 * specifies the color of the triangle
+	 * @return the color of the triangle
+	 */
+	public Color getColor() {
+		return MyMathFactory.color(1, 1, 1);
 	}
 
 	/**
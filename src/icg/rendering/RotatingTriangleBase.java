@@ -31,6 +31,19 @@ abstract class RotatingTriangleBase {
 	 * @param img the image to render to
 	 */
 	public abstract void fillImage(BufferedImage img);
+
+	/**
+	 * Renders the part of the triangle that lies in a band of rows of the image. The bands of one image
+	 * may be rendered concurrently. The default implementation renders the whole triangle with the
+	 * band that starts at row 0. Override this function to render in parallel
+	 * @param img the image to render to
+	 * @param y0 the first row of the band
+	 * @param rows the number of rows in the band
+	 */
+	public void fillBand(BufferedImage img, int y0, int rows) {
+		if (y0 == 0)
+			fillImage(img);
+	}
 	
 	/**
 	 * returns the local transformation (which may be null)
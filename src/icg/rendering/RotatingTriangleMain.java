@@ -3,15 +3,29 @@ package icg.rendering;
 import java.awt.Graphics;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
 
 import ogl.vecmath.*;
 
 public class RotatingTriangleMain extends JFrame{
 	private static final long serialVersionUID = 1270967605637096622L;
 	/**
-	 * the image into which the triangle shall be rendered
+	 * the images into which the triangle is rendered and from which the window is painted
+	 */
+	private final FrameBuffers frames = new FrameBuffers();
+
+	/**
+	 * the image into which the current frame is rendered
 	 */
 	private BufferedImage imgToRender;
 
@@ -25,6 +39,16 @@ public class RotatingTriangleMain extends JFrame{
 	 */
 	private RotatingTriangleBase toRender;
 
+	/**
+	 * the worker threads that render the bands of a frame
+	 */
+	private final ExecutorService workers;
+
+	/**
+	 * the number of bands a frame is split into
+	 */
+	private final int bands;
+
 	/**
 	 * a timer
 	 */
@@ -33,19 +57,25 @@ public class RotatingTriangleMain extends JFrame{
 	public static void main(String[] args) {
 		// create an instance of this class
 		RotatingTriangleMain instance = new RotatingTriangleMain();
+		FrameStats stats = new FrameStats(1000);
 
 		// initialize timer
 		resetTimer();
 		// loop until window is closed
 		while(true){
+			long frameStart = System.nanoTime();
 			// update window/image bounds
 			instance.updateWindow();
 			// update triangle vertices
 			instance.simulate( getElapsedMillis() );
-			// store time of last r
 			// render the triangle
 			instance.render();
 
+			// report frame rate and frame times once per second
+			String report = stats.frame(System.nanoTime() - frameStart);
+			if (report != null)
+				instance.report(report);
+
 			// wait a (milli)second...
 			sleep(1);
 		}
@@ -60,6 +90,14 @@ public class RotatingTriangleMain extends JFrame{
 		setSize(width, height);
 		setVisible(true);
 
+		// create the render workers, one per core
+		bands = Runtime.getRuntime().availableProcessors();
+		workers = Executors.newFixedThreadPool(bands, r -> {
+			Thread t = new Thread(r, "RotatingTriangle worker");
+			t.setDaemon(true);
+			return t;
+		});
+
 		// create new rotating triangle instance
 		toRender = new RotatingTriangle(
 				MyMathFactory.vector(150, 150, 0), 
@@ -73,16 +111,11 @@ public class RotatingTriangleMain extends JFrame{
 	 */
 	public void updateWindow(){
 		// check for new window size
-		width = getWidth();
-		height = getHeight();
+		width = Math.max(getWidth(), 1);
+		height = Math.max(getHeight(), 1);
 
-		// if either there is no image, or its dimension does not match the current window size, create a new image
-		if (imgToRender == null || imgToRender.getWidth() != width || imgToRender.getHeight() != height)
-			imgToRender = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-		
-		Graphics g = imgToRender.createGraphics();
-		g.setColor(new Color(toRender.getBackgroundColor().toAwtColor()));
-		g.fillRect(0, 0, width, height);
+		// take the back buffer, it is reallocated if its dimension does not match the current window size
+		imgToRender = frames.back(width, height);
 	}
 
 
@@ -111,17 +144,78 @@ public class RotatingTriangleMain extends JFrame{
 	 * render the triangle
 	 */
 	public void render(){
-		// call the fill image function of the triangle
-		toRender.fillImage(imgToRender);
-		// repaint this window
+		// clear all bands, then let the triangle fill them, both in parallel
+		final int background = toRender.getBackgroundColor().toAwtColor();
+		runBands((y0, rows) -> clear(imgToRender, y0, rows, background));
+		runBands((y0, rows) -> toRender.fillBand(imgToRender, y0, rows));
+
+		// hand the finished frame to the window and repaint it, without waiting for the painting
+		frames.publish();
 		repaint();
 	}
 
 	@Override
 	public void paint(Graphics g) {
-		// directly draw the image, if available
-		if (imgToRender != null)
-			g.drawImage( imgToRender, 0, 0, null);
+		// directly draw the newest finished frame, if available
+		BufferedImage front = frames.front();
+		if (front != null)
+			g.drawImage( front, 0, 0, null);
+	}
+
+	/**
+	 * shows a frame statistics report in the window title
+	 * @param report the report
+	 */
+	private void report(String report){
+		SwingUtilities.invokeLater(() -> setTitle(report));
+	}
+
+	/**
+	 * work on one band of the image
+	 */
+	private interface BandTask {
+		void run(int y0, int rows);
+	}
+
+	/**
+	 * runs a task for every band of the current image on the workers and waits until all are done
+	 * @param task the task
+	 */
+	private void runBands(BandTask task){
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(bands);
+		for (int band = 0; band != bands; band++) {
+			final int y0 = band * height / bands, y1 = (band + 1) * height / bands;
+			tasks.add(() -> {
+				task.run(y0, y1 - y0);
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> f : workers.invokeAll(tasks))
+				f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * fills a band of an image with a color
+	 */
+	private static void clear(BufferedImage img, int y0, int rows, int argb){
+		ImageRaster raster = ImageRaster.of(img);
+		if (raster != null) {
+			for (int y = y0; y != y0 + rows; y++) {
+				int row = raster.base + y * raster.stride;
+				Arrays.fill(raster.pixels, row, row + raster.width, argb);
+			}
+		} else {
+			Graphics g = img.createGraphics();
+			g.setColor(new Color(argb));
+			g.fillRect(0, y0, img.getWidth(), rows);
+			g.dispose();
+		}
 	}
 	
 	/********************
@@ -0,0 +1,223 @@
+package icg.rendering;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import ogl.vecmath.Vector;
+
+/**
+ * Fills triangles with a solid color, directly into the int array of an
+ * image. Pixel centers lie on integer coordinates, like in
+ * {@link LineRasterizer}.
+ * <p>
+ * Each triangle is tested against three edge functions in 28.4 fixed point.
+ * Pixels on an edge are set only if the edge is a top or a left edge, so
+ * triangles that share an edge never set a pixel twice and never leave a gap.
+ * The bounding box of the triangle is cut into 8x8 tiles. Tiles outside of the
+ * triangle are skipped, tiles completely inside are filled without any test,
+ * and only tiles on the border of the triangle are tested pixel by pixel, with
+ * the edge functions evaluated incrementally.
+ * <p>
+ * Vertex coordinates must lie within {@link #GUARD_BAND} pixels of the origin,
+ * so that the edge functions cannot overflow.
+ */
+public final class TriangleRasterizer {
+	/**
+	 * edge length of a tile in pixels
+	 */
+	public static final int TILE_SIZE = 8;
+
+	/**
+	 * the largest absolute vertex coordinate in pixels
+	 */
+	public static final float GUARD_BAND = 1 << 20;
+
+	// Subpixel bits of the fixed point vertex coordinates.
+	private static final int SUBPIXEL_BITS = 4;
+	private static final int ONE = 1 << SUBPIXEL_BITS;
+
+	private final int[] pixels;
+	private final int base, stride;
+	private final int width, height;
+
+	/**
+	 * creates a rasterizer that draws into an image
+	 * @param img the image, of type TYPE_INT_RGB or TYPE_INT_ARGB
+	 * @throws IllegalArgumentException if the image has any other type
+	 */
+	public TriangleRasterizer(BufferedImage img) {
+		this(raster(img));
+	}
+
+	private TriangleRasterizer(ImageRaster raster) {
+		this(raster.pixels, raster.base, raster.stride, raster.width, raster.height);
+	}
+
+	/**
+	 * creates a rasterizer that draws into an int array
+	 * @param pixels the pixels, pixel (x, y) is stored at offset + y * stride + x
+	 * @param offset index of pixel (0, 0)
+	 * @param stride distance between two rows
+	 * @param width width of the image
+	 * @param height height of the image
+	 */
+	public TriangleRasterizer(int[] pixels, int offset, int stride, int width, int height) {
+		this.pixels = pixels;
+		this.base = offset;
+		this.stride = stride;
+		this.width = width;
+		this.height = height;
+	}
+
+	private static ImageRaster raster(BufferedImage img) {
+		ImageRaster raster = ImageRaster.of(img);
+		if (raster == null)
+			throw new IllegalArgumentException("Unsupported image type " + img.getType());
+		return raster;
+	}
+
+	/**
+	 * fills a triangle, the z coordinates of the vertices are ignored
+	 * @param p0 vertex 0
+	 * @param p1 vertex 1
+	 * @param p2 vertex 2
+	 * @param argb the color as packed ARGB value
+	 */
+	public void fill(Vector p0, Vector p1, Vector p2, int argb) {
+		fill(p0.x(), p0.y(), p1.x(), p1.y(), p2.x(), p2.y(), argb);
+	}
+
+	/**
+	 * fills a triangle, the vertices may be given in any order
+	 * @param argb the color as packed ARGB value
+	 * @throws IllegalArgumentException if a vertex lies outside of the guard band
+	 */
+	public void fill(float x0, float y0, float x1, float y1, float x2, float y2, int argb) {
+		if (!(Math.max(Math.max(Math.abs(x0), Math.abs(y0)), Math.max(Math.max(Math.abs(x1),
+				Math.abs(y1)), Math.max(Math.abs(x2), Math.abs(y2)))) <= GUARD_BAND))
+			throw new IllegalArgumentException("Vertex outside of guard band");
+
+		// Snap the vertices to the subpixel grid.
+		long ax = fixed(x0), ay = fixed(y0);
+		long bx = fixed(x1), by = fixed(y1);
+		long cx = fixed(x2), cy = fixed(y2);
+
+		// Orient the triangle so that the edge functions are positive inside.
+		long area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+		if (area == 0)
+			return;
+		if (area < 0) {
+			long t = bx;
+			bx = cx;
+			cx = t;
+			t = by;
+			by = cy;
+			cy = t;
+		}
+
+		// Bounding box in pixels, culled and clipped against the image.
+		int minX = Math.max(ceilPixel(Math.min(ax, Math.min(bx, cx))), 0);
+		int minY = Math.max(ceilPixel(Math.min(ay, Math.min(by, cy))), 0);
+		int maxX = Math.min(floorPixel(Math.max(ax, Math.max(bx, cx))), width - 1);
+		int maxY = Math.min(floorPixel(Math.max(ay, Math.max(by, cy))), height - 1);
+		if (minX > maxX || minY > maxY)
+			return;
+
+		// Edge function E(x, y) = A x + B y + C for the edges ab, bc and ca,
+		// evaluated at pixel centers. A and B are the steps per pixel.
+		long a0 = (ay - by) * ONE, b0 = (bx - ax) * ONE;
+		long a1 = (by - cy) * ONE, b1 = (cx - bx) * ONE;
+		long a2 = (cy - ay) * ONE, b2 = (ax - cx) * ONE;
+		long e0 = edge(ax, ay, bx, by, minX, minY);
+		long e1 = edge(bx, by, cx, cy, minX, minY);
+		long e2 = edge(cx, cy, ax, ay, minX, minY);
+
+		// Top-left rule: make E = 0 fail for the other edges.
+		if (!isTopLeft(ax, ay, bx, by))
+			e0--;
+		if (!isTopLeft(bx, by, cx, cy))
+			e1--;
+		if (!isTopLeft(cx, cy, ax, ay))
+			e2--;
+
+		// Offsets from the tile origin to the corner with the smallest and the
+		// largest value of each edge function.
+		int last = TILE_SIZE - 1;
+		long lo0 = Math.min(a0, 0) * last + Math.min(b0, 0) * last;
+		long lo1 = Math.min(a1, 0) * last + Math.min(b1, 0) * last;
+		long lo2 = Math.min(a2, 0) * last + Math.min(b2, 0) * last;
+		long hi0 = Math.max(a0, 0) * last + Math.max(b0, 0) * last;
+		long hi1 = Math.max(a1, 0) * last + Math.max(b1, 0) * last;
+		long hi2 = Math.max(a2, 0) * last + Math.max(b2, 0) * last;
+
+		for (int ty = minY; ty <= maxY; ty += TILE_SIZE) {
+			int tyEnd = Math.min(ty + TILE_SIZE, maxY + 1);
+			long dy = ty - minY;
+			long r0 = e0 + b0 * dy, r1 = e1 + b1 * dy, r2 = e2 + b2 * dy;
+
+			for (int tx = minX; tx <= maxX; tx += TILE_SIZE) {
+				int txEnd = Math.min(tx + TILE_SIZE, maxX + 1);
+				long dx = tx - minX;
+				long t0 = r0 + a0 * dx, t1 = r1 + a1 * dx, t2 = r2 + a2 * dx;
+
+				// Skip the tile if it is completely outside of one edge.
+				if (t0 + hi0 < 0 || t1 + hi1 < 0 || t2 + hi2 < 0)
+					continue;
+
+				if (t0 + lo0 >= 0 && t1 + lo1 >= 0 && t2 + lo2 >= 0) {
+					// Completely inside.
+					for (int y = ty; y != tyEnd; y++) {
+						int row = base + y * stride;
+						Arrays.fill(pixels, row + tx, row + txEnd, argb);
+					}
+					continue;
+				}
+
+				// Partially covered, test each pixel.
+				for (int y = ty; y != tyEnd; y++) {
+					int i = base + y * stride + tx, end = i + txEnd - tx;
+					long p0 = t0, p1 = t1, p2 = t2;
+					for (; i != end; i++) {
+						if ((p0 | p1 | p2) >= 0)
+							pixels[i] = argb;
+						p0 += a0;
+						p1 += a1;
+						p2 += a2;
+					}
+					t0 += b0;
+					t1 += b1;
+					t2 += b2;
+				}
+			}
+		}
+	}
+
+	/**
+	 * evaluates the edge function of the edge from (ax, ay) to (bx, by) at the
+	 * center of pixel (x, y)
+	 */
+	private static long edge(long ax, long ay, long bx, long by, int x, int y) {
+		return (bx - ax) * ((long) y * ONE - ay) - (by - ay) * ((long) x * ONE - ax);
+	}
+
+	/**
+	 * A top edge is horizontal with the inside below it, a left edge has the
+	 * inside to its right. With y pointing down and the orientation chosen in
+	 * fill, these are the edges that go up, or right if horizontal.
+	 */
+	private static boolean isTopLeft(long ax, long ay, long bx, long by) {
+		return by < ay || (by == ay && bx > ax);
+	}
+
+	private static long fixed(float f) {
+		return Math.round(f * ONE);
+	}
+
+	private static int ceilPixel(long v) {
+		return (int) -Math.floorDiv(-v, ONE);
+	}
+
+	private static int floorPixel(long v) {
+		return (int) Math.floorDiv(v, ONE);
+	}
+}
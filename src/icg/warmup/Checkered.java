@@ -6,10 +6,13 @@ package icg.warmup;
 
 import static ogl.vecmathimp.FactoryDefault.vecmath;
 import icg.warmup.base.ImageGenerator;
-import icg.warmup.base.Painter;
+import icg.warmup.base.SpanPainter;
 import ogl.vecmath.Color;
 
-public class Checkered implements Painter {
+public class Checkered implements SpanPainter {
+
+	private static final int BLACK = vecmath.color(0, 0, 0).toAwtColor();
+	private static final int WHITE = vecmath.color(1, 1, 1).toAwtColor();
 
 	public static void main(String[] args) {
 		new ImageGenerator(new Checkered(), 100, 100, "checkered.png");
@@ -23,4 +26,11 @@ public class Checkered implements Painter {
 			return vecmath.color(1, 1, 1);
 	}
 
+	@Override
+	public void paintSpan(int x, int y, int length, int width, int height,
+			int[] argb, int offset) {
+		for (int end = x + length; x != end; x++)
+			argb[offset++] = (x + y) % 2 == 0 ? BLACK : WHITE;
+	}
+
 }
@@ -6,7 +6,7 @@ package icg.warmup;
 
 import static ogl.vecmathimp.FactoryDefault.vecmath;
 import icg.warmup.base.ImageGenerator;
-import icg.warmup.base.Painter;
+import icg.warmup.base.SpanPainter;
 import ogl.vecmath.Color;
 
 /**
@@ -15,7 +15,7 @@ import ogl.vecmath.Color;
  * @see <a href="http://en.wikipedia.org/wiki/Mark_Rothko">Mark Rothko</a>, <a
  *      href="http://www.google.de/images?q=rothko">Images</a>
  */
-public class Rothko implements Painter {
+public class Rothko implements SpanPainter {
 
   public static void main(String[] args) {
     new ImageGenerator(new Rothko(1.0f, 0.3f, 0.0f), arg(args, 0, 600), arg(
@@ -24,6 +24,9 @@ public class Rothko implements Painter {
 
   float red, green, blue;
 
+  // The three colors as packed ARGB values, for paintSpan().
+  private final int borderColor, upperColor, lowerColor;
+
   /**
    * Paint like Mark Rothko using the provided base color.
    * 
@@ -38,6 +41,9 @@ public class Rothko implements Painter {
     red = r;
     green = g;
     blue = b;
+    borderColor = vecmath.color(r * 0.3f, g * 0.3f, b * 0.3f).toAwtColor();
+    upperColor = vecmath.color(r, g, b).toAwtColor();
+    lowerColor = vecmath.color(r * 0.6f, g * 0.6f, b * 0.6f).toAwtColor();
   }
 
   /*
@@ -61,6 +67,17 @@ public class Rothko implements Painter {
     }
   }
 
+  @Override
+  public void paintSpan(int x, int y, int length, int width, int height,
+      int[] argb, int offset) {
+    float border = width * 0.05f;
+    boolean borderRow = y < border || height - y < border;
+    int inner = y < height / 2 ? upperColor : lowerColor;
+    for (int end = x + length; x != end; x++)
+      argb[offset++] = borderRow || x < border || width - x < border
+          ? borderColor : inner;
+  }
+
   /**
    * Try to parse an integer argument from the command line. If that fails,
    * return a default value.
@@ -0,0 +1,53 @@
+package icg.warmup.base;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keep the image in memory as RGBA bytes, in the same layout as
+ * <code>RgbaSink</code>. The buffer is direct, so it can be handed to OpenGL
+ * as texture data without another copy.
+ */
+public class ByteBufferSink implements ImageSink {
+
+  private ByteBuffer buffer;
+  private byte[] row;
+  private int width;
+
+  /**
+   * @throws IllegalArgumentException
+   *           If the image has more than <code>Integer.MAX_VALUE</code> bytes,
+   *           the limit of a <code>ByteBuffer</code>.
+   */
+  @Override
+  public void begin(int width, int height) {
+    long size = 4L * width * height;
+    if (size > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Image too large for a ByteBuffer: "
+          + width + "x" + height);
+    this.width = width;
+    buffer = ByteBuffer.allocateDirect((int) size);
+    row = new byte[4 * width];
+  }
+
+  @Override
+  public void write(int y, int rows, int[] argb) {
+    for (int r = 0; r != rows; r++)
+      buffer.put(row, 0,
+          StreamSink.toBytes(argb, r * width, width, row, 0, true));
+  }
+
+  @Override
+  public void end() {
+    buffer.flip();
+    row = null;
+  }
+
+  /**
+   * Get the generated image.
+   * 
+   * @return The RGBA bytes, positioned at the first pixel.
+   */
+  public ByteBuffer getBuffer() {
+    return buffer;
+  }
+}
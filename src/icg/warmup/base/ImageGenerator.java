@@ -5,17 +5,38 @@
 package icg.warmup.base;
 
 import java.awt.Desktop;
+import java.awt.GraphicsEnvironment;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 
-import javax.imageio.ImageIO;
-
 /**
  * Generate an image to specification and save it to disk in PNG format.
+ * <p>
+ * The constructors generate the image, save it and open it in an image viewer
+ * right away. For batch use, configure a generation with
+ * <code>builder</code> instead:
+ * 
+ * <pre>
+ * ImageGenerator.builder(painter).size(8192, 8192).sink(new PpmSink(file))
+ * 		.generate();
+ * </pre>
+ * 
+ * This never touches the desktop and reports failures as exceptions. The
+ * image is painted and handed to the sink in bands of rows, so streaming
+ * sinks like <code>PngSink</code> never hold the complete image.
+ * <p>
+ * Painters that implement <code>SpanPainter</code> are asked for whole spans
+ * of pixels instead of single <code>Color</code> objects.
  */
 public class ImageGenerator {
 
+	/**
+	 * Number of rows painted and written per band.
+	 */
+	static final int BAND_ROWS = 4 * TileRenderer.TILE_SIZE;
+
 	/**
 	 * Instantiate a generator for the specified painter object with default size
 	 * and filename.
@@ -44,25 +65,178 @@ public class ImageGenerator {
 		generate(painter, width, height, filename);
 	}
 
-	private void generate(Painter painter, int width, int height, String filename) {
+	/**
+	 * Render an image with the specified painter object. The image is cut into
+	 * tiles that are painted in parallel on all available cores, so the
+	 * painter is called from several threads at once.
+	 * 
+	 * @param painter
+	 *          The painter object.
+	 * @param width
+	 *          Image width in pixels.
+	 * @param height
+	 *          Image height in pixels.
+	 * @return The image.
+	 */
+	public static BufferedImage render(Painter painter, int width, int height) {
+		return render(painter, width, height, true);
+	}
+
+	/**
+	 * Render an image with the specified painter object.
+	 * 
+	 * @param painter
+	 *          The painter object.
+	 * @param width
+	 *          Image width in pixels.
+	 * @param height
+	 *          Image height in pixels.
+	 * @param parallel
+	 *          If true, tiles of the image are painted in parallel on all
+	 *          available cores. If false, the image is painted on the calling
+	 *          thread only.
+	 * @return The image.
+	 */
+	public static BufferedImage render(Painter painter, int width, int height,
+			boolean parallel) {
 		BufferedImage image = new BufferedImage(width, height,
 				BufferedImage.TYPE_INT_ARGB);
 
-		// Set a color to all pixels.
-		for (int x = 0; x != width; x++)
-			for (int y = 0; y != height; y++)
-				// TODO Flip Y. Next year.
-				// image.setRGB(x, y, painter.pixelColorAt(x, height - y - 1, width,
-				// height).toAwtColor());
-				image.setRGB(x, y, painter.pixelColorAt(x, y, width, height)
-						.toAwtColor());
+		// Write straight into the backing array, one ARGB int per pixel.
+		// TODO Flip Y. Next year.
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer())
+				.getData();
+		TileRenderer.render(painter, width, height, 0, height, pixels, parallel);
+		return image;
+	}
+
+	/**
+	 * Start to configure the generation of an image. By default the image is
+	 * 480 by 320 pixels, painted in parallel and not shown.
+	 * 
+	 * @param painter
+	 *          The painter object.
+	 * @return The builder.
+	 */
+	public static Builder builder(Painter painter) {
+		return new Builder(painter);
+	}
+
+	/**
+	 * Configures and runs the generation of one image.
+	 */
+	public static class Builder {
+		private final SpanPainter painter;
+		private int width = 480, height = 320;
+		private ImageSink sink;
+		private File file;
+		private boolean parallel = true;
+		private boolean show;
+
+		private Builder(Painter painter) {
+			this.painter = SpanPainter.of(painter);
+		}
 
-		// Write the image to disk.
+		/**
+		 * Set the image size.
+		 * 
+		 * @param width
+		 *          Image width in pixels.
+		 * @param height
+		 *          Image height in pixels.
+		 * @return This builder.
+		 */
+		public Builder size(int width, int height) {
+			if (width <= 0 || height <= 0)
+				throw new IllegalArgumentException("Invalid image size " + width
+						+ "x" + height);
+			this.width = width;
+			this.height = height;
+			return this;
+		}
+
+		/**
+		 * Write the image to a sink.
+		 * 
+		 * @param sink
+		 *          The sink.
+		 * @return This builder.
+		 */
+		public Builder sink(ImageSink sink) {
+			this.sink = sink;
+			this.file = null;
+			return this;
+		}
+
+		/**
+		 * Write the image to a PNG file with the streaming <code>PngSink</code>.
+		 * 
+		 * @param filename
+		 *          File to store the image in.
+		 * @return This builder.
+		 */
+		public Builder file(String filename) {
+			this.file = new File(filename);
+			this.sink = new PngSink(file);
+			return this;
+		}
+
+		/**
+		 * Choose whether the image is painted on all cores or on the calling
+		 * thread only.
+		 * 
+		 * @return This builder.
+		 */
+		public Builder parallel(boolean parallel) {
+			this.parallel = parallel;
+			return this;
+		}
+
+		/**
+		 * Open the image file in an image viewer after generation. This only
+		 * happens for images written with <code>file</code>, and only if a
+		 * desktop is available.
+		 * 
+		 * @return This builder.
+		 */
+		public Builder show(boolean show) {
+			this.show = show;
+			return this;
+		}
+
+		/**
+		 * Paint the image and write it to the sink.
+		 * 
+		 * @throws IOException
+		 *           If the sink fails.
+		 */
+		public void generate() throws IOException {
+			if (sink == null)
+				throw new IllegalStateException("No sink configured");
+
+			int bandRows = Math.min(BAND_ROWS, height);
+			int[] band = new int[width * bandRows];
+			try (ImageSink s = sink) {
+				s.begin(width, height);
+				for (int y = 0; y < height; y += bandRows) {
+					int rows = Math.min(bandRows, height - y);
+					TileRenderer.render(painter, width, height, y, rows, band, parallel);
+					s.write(y, rows, band);
+				}
+				s.end();
+			}
+
+			if (show && file != null && !GraphicsEnvironment.isHeadless()
+					&& Desktop.isDesktopSupported()
+					&& Desktop.getDesktop().isSupported(Desktop.Action.OPEN))
+				Desktop.getDesktop().open(file);
+		}
+	}
+
+	private void generate(Painter painter, int width, int height, String filename) {
 		try {
-			File file = new File(filename);
-			ImageIO.write(image, "png", file);
-			// Try to open an appropriate image viewer.
-			Desktop.getDesktop().open(file);
+			builder(painter).size(width, height).file(filename).show(true)
+					.generate();
 		} catch (IOException e) {
 			e.printStackTrace();
 			System.exit(1);
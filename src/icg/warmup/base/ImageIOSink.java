@@ -0,0 +1,55 @@
+package icg.warmup.base;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Collect the image in a <code>BufferedImage</code> and save it with
+ * <code>ImageIO</code> once it is complete. This supports every format
+ * ImageIO can write, but needs the whole image in memory. Use
+ * <code>PngSink</code> for large PNG images.
+ */
+public class ImageIOSink implements ImageSink {
+
+  private final String format;
+  private final File file;
+  private BufferedImage image;
+
+  /**
+   * Save the image to a file.
+   * 
+   * @param format
+   *          An ImageIO format name, for example "png".
+   * @param file
+   *          The file to write.
+   */
+  public ImageIOSink(String format, File file) {
+    this.format = format;
+    this.file = file;
+  }
+
+  @Override
+  public void begin(int width, int height) {
+    image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+  }
+
+  @Override
+  public void write(int y, int rows, int[] argb) {
+    int width = image.getWidth();
+    image.setRGB(0, y, width, rows, argb, 0, width);
+  }
+
+  @Override
+  public void end() throws IOException {
+    if (!ImageIO.write(image, format, file))
+      throw new IOException("No ImageIO writer for format " + format);
+  }
+
+  @Override
+  public void close() {
+    image = null;
+  }
+}
@@ -0,0 +1,47 @@
+package icg.warmup.base;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives a generated image band by band, from top to bottom. A sink sees
+ * one call to <code>begin</code>, then calls to <code>write</code> that cover
+ * all rows of the image in order, and finally one call to <code>end</code>.
+ * <code>close</code> is always called last, even if generation failed, and
+ * releases any resources held by the sink.
+ */
+public interface ImageSink extends Closeable {
+
+  /**
+   * Start a new image.
+   * 
+   * @param width
+   *          Image width in pixels.
+   * @param height
+   *          Image height in pixels.
+   */
+  public void begin(int width, int height) throws IOException;
+
+  /**
+   * Write a band of finished rows.
+   * 
+   * @param y
+   *          The first row of the band.
+   * @param rows
+   *          Number of rows in the band.
+   * @param argb
+   *          The pixels as packed ARGB values. Pixel (x, y + r) is stored at
+   *          index <code>r * width + x</code>. The array is reused for the next
+   *          band once this method returns.
+   */
+  public void write(int y, int rows, int[] argb) throws IOException;
+
+  /**
+   * Finish the image after the last band has been written.
+   */
+  public void end() throws IOException;
+
+  @Override
+  public default void close() throws IOException {
+  }
+}
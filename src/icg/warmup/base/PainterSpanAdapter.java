@@ -0,0 +1,27 @@
+package icg.warmup.base;
+
+import ogl.vecmath.Color;
+
+/**
+ * Paints spans with a plain <code>Painter</code>, one pixel at a time.
+ */
+final class PainterSpanAdapter implements SpanPainter {
+
+  private final Painter painter;
+
+  PainterSpanAdapter(Painter painter) {
+    this.painter = painter;
+  }
+
+  @Override
+  public Color pixelColorAt(int x, int y, int width, int height) {
+    return painter.pixelColorAt(x, y, width, height);
+  }
+
+  @Override
+  public void paintSpan(int x, int y, int length, int width, int height,
+      int[] argb, int offset) {
+    for (int end = x + length; x != end; x++)
+      argb[offset++] = painter.pixelColorAt(x, y, width, height).toAwtColor();
+  }
+}
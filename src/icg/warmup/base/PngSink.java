@@ -0,0 +1,171 @@
+package icg.warmup.base;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encode the image as a 32 bit RGBA PNG while it is being generated. Every
+ * band is filtered, compressed and written out as soon as it arrives, so
+ * memory use does not depend on the image height.
+ */
+public class PngSink extends StreamSink {
+
+  private static final byte[] SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10,
+      26, 10 };
+
+  private final int level;
+  private Deflater deflater;
+  private DeflaterOutputStream idat;
+  private byte[] row;
+
+  /**
+   * Write to a file with the default compression level.
+   */
+  public PngSink(File file) {
+    this(file, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Write to a file.
+   * 
+   * @param level
+   *          The deflate compression level, 0 to 9.
+   */
+  public PngSink(File file, int level) {
+    super(file);
+    this.level = level;
+  }
+
+  /**
+   * Write to a stream with the default compression level. The stream is not
+   * closed.
+   */
+  public PngSink(OutputStream out) {
+    this(out, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Write to a stream. The stream is not closed.
+   * 
+   * @param level
+   *          The deflate compression level, 0 to 9.
+   */
+  public PngSink(OutputStream out, int level) {
+    super(out);
+    this.level = level;
+  }
+
+  @Override
+  public void begin(int width, int height) throws IOException {
+    super.begin(width, height);
+    out.write(SIGNATURE);
+
+    byte[] header = new byte[13];
+    putInt(header, 0, width);
+    putInt(header, 4, height);
+    header[8] = 8; // Bits per channel.
+    header[9] = 6; // Truecolor with alpha.
+    writeChunk(out, "IHDR", header, header.length);
+
+    deflater = new Deflater(level);
+    idat = new DeflaterOutputStream(new ChunkStream(out), deflater, 1 << 16);
+    row = new byte[1 + 4 * width];
+  }
+
+  @Override
+  public void write(int y, int rows, int[] argb) throws IOException {
+    for (int r = 0; r != rows; r++) {
+      int end = toBytes(argb, r * width, width, row, 1, true);
+      // Sub filter: store each byte as the difference to the same channel of
+      // the pixel to its left. Cheap, and compresses much better than raw.
+      row[0] = 1;
+      for (int i = end - 1; i > 4; i--)
+        row[i] -= row[i - 4];
+      idat.write(row, 0, end);
+    }
+  }
+
+  @Override
+  public void end() throws IOException {
+    idat.finish();
+    idat.flush();
+    writeChunk(out, "IEND", row, 0);
+    super.end();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (deflater != null) {
+      deflater.end();
+      deflater = null;
+    }
+    super.close();
+  }
+
+  private static void putInt(byte[] b, int offset, int value) {
+    b[offset] = (byte) (value >>> 24);
+    b[offset + 1] = (byte) (value >>> 16);
+    b[offset + 2] = (byte) (value >>> 8);
+    b[offset + 3] = (byte) value;
+  }
+
+  private static void writeChunk(OutputStream out, String type, byte[] data,
+      int length) throws IOException {
+    byte[] name = type.getBytes("US-ASCII");
+    CRC32 crc = new CRC32();
+    crc.update(name);
+    crc.update(data, 0, length);
+
+    DataOutputStream dout = new DataOutputStream(out);
+    dout.writeInt(length);
+    dout.write(name);
+    dout.write(data, 0, length);
+    dout.writeInt((int) crc.getValue());
+  }
+
+  /**
+   * Splits the compressed data into IDAT chunks of bounded size.
+   */
+  private static final class ChunkStream extends OutputStream {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[1 << 16];
+    private int length;
+
+    ChunkStream(OutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (length == buffer.length)
+        flush();
+      buffer[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int offset, int count) throws IOException {
+      while (count > 0) {
+        if (length == buffer.length)
+          flush();
+        int n = Math.min(count, buffer.length - length);
+        System.arraycopy(b, offset, buffer, length, n);
+        length += n;
+        offset += n;
+        count -= n;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (length > 0) {
+        writeChunk(out, "IDAT", buffer, length);
+        length = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package icg.warmup.base;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Write the image in binary PPM format (P6). PPM has no alpha channel, the
+ * alpha values of the pixels are dropped.
+ */
+public class PpmSink extends StreamSink {
+
+  private byte[] row;
+
+  /**
+   * Write to a file.
+   */
+  public PpmSink(File file) {
+    super(file);
+  }
+
+  /**
+   * Write to a stream. The stream is not closed.
+   */
+  public PpmSink(OutputStream out) {
+    super(out);
+  }
+
+  @Override
+  public void begin(int width, int height) throws IOException {
+    super.begin(width, height);
+    row = new byte[3 * width];
+    out.write(("P6\n" + width + " " + height + "\n255\n")
+        .getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @Override
+  public void write(int y, int rows, int[] argb) throws IOException {
+    for (int r = 0; r != rows; r++)
+      out.write(row, 0, toBytes(argb, r * width, width, row, 0, false));
+  }
+}
@@ -0,0 +1,40 @@
+package icg.warmup.base;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Write the image as raw bytes without any header: four bytes per pixel in
+ * the order red, green, blue, alpha, row after row from top to bottom.
+ */
+public class RgbaSink extends StreamSink {
+
+  private byte[] row;
+
+  /**
+   * Write to a file.
+   */
+  public RgbaSink(File file) {
+    super(file);
+  }
+
+  /**
+   * Write to a stream. The stream is not closed.
+   */
+  public RgbaSink(OutputStream out) {
+    super(out);
+  }
+
+  @Override
+  public void begin(int width, int height) throws IOException {
+    super.begin(width, height);
+    row = new byte[4 * width];
+  }
+
+  @Override
+  public void write(int y, int rows, int[] argb) throws IOException {
+    for (int r = 0; r != rows; r++)
+      out.write(row, 0, toBytes(argb, r * width, width, row, 0, true));
+  }
+}
@@ -0,0 +1,49 @@
+package icg.warmup.base;
+
+/**
+ * A <code>Painter</code> that can paint a whole horizontal span of pixels at
+ * once, directly as packed ARGB values. Implement this in addition to
+ * <code>pixelColorAt</code> to avoid allocating a <code>Color</code> for every
+ * pixel. <code>ImageGenerator</code> uses <code>paintSpan</code> whenever a
+ * painter provides it.
+ */
+public interface SpanPainter extends Painter {
+
+  /**
+   * Determine the colors of the pixels (x, y) to (x + length - 1, y). The
+   * result must be the same as <code>pixelColorAt(...).toAwtColor()</code>
+   * for each of those pixels.
+   * 
+   * @param x
+   *          The X-coordinate of the first pixel.
+   * @param y
+   *          The Y-Coordinate of the pixels.
+   * @param length
+   *          The number of pixels.
+   * @param width
+   *          The image width in pixels.
+   * @param height
+   *          The image height in pixels.
+   * @param argb
+   *          Receives the packed ARGB colors.
+   * @param offset
+   *          Index in <code>argb</code> for the first pixel.
+   */
+  public void paintSpan(int x, int y, int length, int width, int height,
+      int[] argb, int offset);
+
+  /**
+   * Get a span painter for any painter. Span painters are returned as they
+   * are, other painters are adapted by calling <code>pixelColorAt</code> for
+   * each pixel of a span.
+   * 
+   * @param painter
+   *          The painter object.
+   * @return The span painter.
+   */
+  public static SpanPainter of(Painter painter) {
+    if (painter instanceof SpanPainter)
+      return (SpanPainter) painter;
+    return new PainterSpanAdapter(painter);
+  }
+}
@@ -0,0 +1,70 @@
+package icg.warmup.base;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Base class for sinks that encode the image into an output stream. A stream
+ * that is passed in by the caller is flushed but not closed; a file is opened
+ * in <code>begin</code> and closed by <code>close</code>.
+ */
+abstract class StreamSink implements ImageSink {
+
+  private final File file;
+  protected OutputStream out;
+  protected int width, height;
+
+  StreamSink(File file) {
+    this.file = file;
+  }
+
+  StreamSink(OutputStream out) {
+    this.file = null;
+    this.out = out;
+  }
+
+  @Override
+  public void begin(int width, int height) throws IOException {
+    this.width = width;
+    this.height = height;
+    if (file != null)
+      out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+  }
+
+  @Override
+  public void end() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (file != null && out != null) {
+      out.close();
+      out = null;
+    }
+  }
+
+  /**
+   * Convert packed ARGB pixels to RGBA or RGB bytes.
+   * 
+   * @param alpha
+   *          Whether to store the alpha channel.
+   * @return The index behind the last byte written.
+   */
+  static int toBytes(int[] argb, int offset, int count, byte[] dest,
+      int destOffset, boolean alpha) {
+    int d = destOffset;
+    for (int i = offset, end = offset + count; i != end; i++) {
+      int c = argb[i];
+      dest[d++] = (byte) (c >>> 16);
+      dest[d++] = (byte) (c >>> 8);
+      dest[d++] = (byte) c;
+      if (alpha)
+        dest[d++] = (byte) (c >>> 24);
+    }
+    return d;
+  }
+}
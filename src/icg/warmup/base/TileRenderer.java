@@ -0,0 +1,95 @@
+package icg.warmup.base;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fill a band of image rows with the colors of a painter, in parallel. The
+ * band is cut into square tiles that are distributed by fork/join; inside a
+ * tile, each row is painted as one span. Pixels are written as packed ARGB
+ * values into an int array, one row after the other.
+ */
+final class TileRenderer extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Edge length of a tile in pixels.
+   */
+  static final int TILE_SIZE = 64;
+
+  private final SpanPainter painter;
+  private final int width, height;
+  private final int y0, rows;
+  private final int[] argb;
+  private final int tilesX;
+  private final int firstTile, lastTile;
+
+  private TileRenderer(SpanPainter painter, int width, int height, int y0,
+      int rows, int[] argb, int firstTile, int lastTile) {
+    this.painter = painter;
+    this.width = width;
+    this.height = height;
+    this.y0 = y0;
+    this.rows = rows;
+    this.argb = argb;
+    this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+    this.firstTile = firstTile;
+    this.lastTile = lastTile;
+  }
+
+  /**
+   * Render rows <code>y0</code> to <code>y0 + rows - 1</code> of an image.
+   *
+   * @param painter
+   *          The painter object. It is called from several threads at once.
+   * @param width
+   *          Image width in pixels.
+   * @param height
+   *          Image height in pixels.
+   * @param y0
+   *          First row to render.
+   * @param rows
+   *          Number of rows to render.
+   * @param argb
+   *          Receives the pixels of the band. Pixel (x, y) is stored at index
+   *          <code>(y - y0) * width + x</code>.
+   * @param parallel
+   *          Whether to distribute the tiles over the common fork/join pool or
+   *          to render them one after the other on the calling thread.
+   */
+  static void render(Painter painter, int width, int height, int y0, int rows,
+      int[] argb, boolean parallel) {
+    int tiles = ((width + TILE_SIZE - 1) / TILE_SIZE)
+        * ((rows + TILE_SIZE - 1) / TILE_SIZE);
+    TileRenderer all = new TileRenderer(SpanPainter.of(painter), width,
+        height, y0, rows, argb, 0, tiles);
+    if (parallel)
+      ForkJoinPool.commonPool().invoke(all);
+    else
+      for (int tile = 0; tile != tiles; tile++)
+        all.renderTile(tile);
+  }
+
+  @Override
+  protected void compute() {
+    if (lastTile - firstTile > 1) {
+      int mid = (firstTile + lastTile) >>> 1;
+      invokeAll(new TileRenderer(painter, width, height, y0, rows, argb,
+          firstTile, mid), new TileRenderer(painter, width, height, y0, rows,
+          argb, mid, lastTile));
+    } else if (lastTile > firstTile) {
+      renderTile(firstTile);
+    }
+  }
+
+  private void renderTile(int tile) {
+    int tx = (tile % tilesX) * TILE_SIZE;
+    int ty = (tile / tilesX) * TILE_SIZE;
+    int xEnd = Math.min(tx + TILE_SIZE, width);
+    int yEnd = Math.min(ty + TILE_SIZE, rows);
+
+    for (int y = ty; y != yEnd; y++)
+      painter.paintSpan(tx, y0 + y, xEnd - tx, width, height, argb, y * width
+          + tx);
+  }
+}
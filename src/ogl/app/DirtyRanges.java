@@ -0,0 +1,67 @@
+package ogl.app;
+
+//A small set of disjoint, sorted ranges [start, end) of vertices that have to
+//be uploaded. Overlapping and adjacent ranges are merged. If there are too
+//many ranges, the two with the smallest gap between them are merged, so an
+//upload never takes more than MAX_RANGES calls.
+class DirtyRanges {
+	static final int MAX_RANGES = 8;
+
+	private final int[] starts = new int[MAX_RANGES + 1];
+	private final int[] ends = new int[MAX_RANGES + 1];
+	private int count;
+
+	void add(int start, int end) {
+		if (start >= end)
+			return;
+		// The first range that ends at or after start can be merged or follows.
+		int i = 0;
+		while (i != count && ends[i] < start)
+			i++;
+		int j = i;
+		while (j != count && starts[j] <= end) {
+			start = Math.min(start, starts[j]);
+			end = Math.max(end, ends[j]);
+			j++;
+		}
+		// Replace ranges i to j - 1 by the merged range.
+		int shift = 1 - (j - i);
+		System.arraycopy(starts, j, starts, j + shift, count - j);
+		System.arraycopy(ends, j, ends, j + shift, count - j);
+		starts[i] = start;
+		ends[i] = end;
+		count += shift;
+
+		if (count > MAX_RANGES) {
+			int best = 0;
+			for (int k = 1; k != count - 1; k++)
+				if (starts[k + 1] - ends[k] < starts[best + 1] - ends[best])
+					best = k;
+			ends[best] = ends[best + 1];
+			System.arraycopy(starts, best + 2, starts, best + 1, count - best - 2);
+			System.arraycopy(ends, best + 2, ends, best + 1, count - best - 2);
+			count--;
+		}
+	}
+
+	void addAll(DirtyRanges other) {
+		for (int i = 0; i != other.count; i++)
+			add(other.starts[i], other.ends[i]);
+	}
+
+	void clear() {
+		count = 0;
+	}
+
+	int size() {
+		return count;
+	}
+
+	int start(int i) {
+		return starts[i];
+	}
+
+	int end(int i) {
+		return ends[i];
+	}
+}
@@ -0,0 +1,318 @@
+package ogl.app;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.lwjgl.opengl.GL44;
+
+//Auxiliary class to represent a Vertex Array Object (VAO) whose vertices
+//change, e.g. animated geometry. Instead of creating a new VertexArrayObject
+//every frame, write the changed vertices with set() and call upload() once per
+//frame before drawing. The vertices are kept in a client side copy; only the
+//ranges written since the last upload are transferred to the GPU.
+public class DynamicVertexArrayObject {
+	// How changed vertices get to the GPU.
+	public enum Mode {
+		// One buffer, each dirty range is written with glBufferSubData. Good for
+		// small changes to large meshes.
+		SUB_DATA,
+		// One buffer that is orphaned with glBufferData before every upload, so
+		// the driver can hand out fresh memory instead of waiting for the GPU to
+		// finish drawing the old contents. Always uploads all vertices.
+		ORPHAN,
+		// A ring of buffers, one per frame in flight. Each frame writes into the
+		// next buffer, after waiting for the fence of the frame that last drew
+		// from it. With OpenGL 4.4 the ring is persistently mapped and written
+		// without any GL call.
+		RING
+	}
+
+	// The number of buffers in a ring if not given.
+	public static final int DEFAULT_RING_SIZE = 3;
+
+	private final VertexLayout layout;
+	private final Mode mode;
+	// the number of vertices one buffer holds
+	private final int capacity;
+	private final int stride;
+	// the VAO id
+	private final int id;
+	// the vertex buffer object, holding ringSize buffers of capacity vertices
+	private final int vbo;
+	// the client side copy of the vertices, and the view handed out by getData
+	private final FloatBuffer data, view;
+	// the number of vertices to draw
+	private int numberOfVertices;
+
+	// The ranges each buffer of the ring lacks, one entry without a ring.
+	private final DirtyRanges[] dirty;
+	// The fence of the last draw from each buffer of the ring, 0 if none.
+	private final long[] fences;
+	// the buffer of the ring written and drawn this frame
+	private int segment;
+	// the persistently mapped ring, or null
+	private final FloatBuffer mapped;
+
+	/**
+	 * Creates a dynamic VAO with DEFAULT_RING_SIZE buffers in RING mode.
+	 * @param layout the attributes to store
+	 * @param capacity the maximum number of vertices
+	 * @param mode how to upload changes
+	 */
+	public DynamicVertexArrayObject(VertexLayout layout, int capacity, Mode mode) {
+		this(layout, capacity, mode, mode == Mode.RING ? DEFAULT_RING_SIZE : 1);
+	}
+
+	/**
+	 * Creates a dynamic VAO. All vertices are zero and will be drawn until
+	 * setVertexCount is called.
+	 * @param layout the attributes to store
+	 * @param capacity the maximum number of vertices
+	 * @param mode how to upload changes
+	 * @param ringSize the number of buffers in RING mode, usually the number of frames the GPU may lag behind plus one
+	 */
+	public DynamicVertexArrayObject(VertexLayout layout, int capacity, Mode mode, int ringSize) {
+		if (mode != Mode.RING)
+			ringSize = 1;
+		if (capacity <= 0 || ringSize <= 0)
+			throw new IllegalArgumentException("Capacity and ring size must be positive");
+		this.layout = layout;
+		this.mode = mode;
+		this.capacity = capacity;
+		this.stride = layout.getStride();
+		this.numberOfVertices = capacity;
+		this.data = BufferUtils.createFloatBuffer(capacity * stride);
+		this.view = data.duplicate();
+		this.dirty = new DirtyRanges[ringSize];
+		for (int i = 0; i != ringSize; i++)
+			dirty[i] = new DirtyRanges();
+		this.fences = new long[ringSize];
+
+		// create the VAO id and activate it
+		if (OpenGLApp.getGLMajor() >= 3) {
+			id = GL30.glGenVertexArrays();
+			GLState.bindVertexArray(id);
+		} else {
+			id = -1;
+		}
+
+		vbo = glGenBuffers();
+		GLState.bindBuffer(GL_ARRAY_BUFFER, vbo);
+		long size = (long) ringSize * capacity * stride * Float.BYTES;
+		if (mode == Mode.RING && GL.getCapabilities().OpenGL44) {
+			int flags = GL30.GL_MAP_WRITE_BIT | GL44.GL_MAP_PERSISTENT_BIT | GL44.GL_MAP_COHERENT_BIT;
+			GL44.glBufferStorage(GL_ARRAY_BUFFER, size, flags);
+			mapped = GL30.glMapBufferRange(GL_ARRAY_BUFFER, 0, size, flags)
+					.order(ByteOrder.nativeOrder()).asFloatBuffer();
+		} else {
+			glBufferData(GL_ARRAY_BUFFER, size, mode == Mode.SUB_DATA ? GL_DYNAMIC_DRAW
+					: GL_STREAM_DRAW);
+			mapped = null;
+		}
+		// New buffer storage is undefined, so transfer the zeroed client side
+		// copy into every buffer of the ring.
+		for (int i = 0; i != ringSize; i++) {
+			if (mapped != null) {
+				mapped.position(i * capacity * stride);
+				mapped.put(data);
+			} else {
+				glBufferSubData(GL_ARRAY_BUFFER, (long) i * capacity * stride * Float.BYTES, data);
+			}
+			data.clear();
+		}
+		VertexArrayObject.setAttribPointers(layout);
+	}
+
+	public VertexLayout getLayout() {
+		return layout;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return whether the ring is written through a persistent mapping
+	 */
+	public boolean isPersistent() {
+		return mapped != null;
+	}
+
+	/**
+	 * Sets the number of vertices to draw, from the first one.
+	 */
+	public void setVertexCount(int n) {
+		if (n < 0 || n > capacity)
+			throw new IllegalArgumentException("Vertex count out of range: " + n);
+		numberOfVertices = n;
+	}
+
+	public int getVertexCount() {
+		return numberOfVertices;
+	}
+
+	/**
+	 * Replaces one vertex.
+	 * @throws IllegalArgumentException if the vertex lacks an attribute of the layout
+	 */
+	public void set(int index, Vertex v) {
+		data.position(index * stride);
+		layout.put(v, data);
+		markDirty(index, 1);
+	}
+
+	/**
+	 * Replaces consecutive vertices.
+	 * @param first the index of the first vertex to replace
+	 */
+	public void set(int first, Vertex[] vertices) {
+		data.position(first * stride);
+		for (Vertex v : vertices)
+			layout.put(v, data);
+		markDirty(first, vertices.length);
+	}
+
+	/**
+	 * Gives direct access to the client side copy of the vertices, interleaved
+	 * as described by the layout. After writing to it, call markDirty for the
+	 * changed vertices.
+	 */
+	public FloatBuffer getData() {
+		return view;
+	}
+
+	/**
+	 * Marks vertices as changed, so that the next upload transfers them.
+	 */
+	public void markDirty(int first, int count) {
+		if (first < 0 || count < 0 || first + count > capacity)
+			throw new IndexOutOfBoundsException("Vertices " + first + " to " + (first + count));
+		for (DirtyRanges d : dirty)
+			d.add(first, first + count);
+	}
+
+	/**
+	 * Transfers the changed vertices to the GPU. Call once per frame, before
+	 * drawing. In RING mode this moves on to the next buffer of the ring,
+	 * which may wait for the GPU to finish the frame that drew from it.
+	 */
+	public void upload() {
+		if (dirty[segment].size() == 0)
+			return;
+
+		if (mode == Mode.RING) {
+			segment = (segment + 1) % dirty.length;
+			waitFence(segment);
+		}
+		DirtyRanges ranges = dirty[segment];
+		int base = segment * capacity * stride;
+		if (mapped != null) {
+			for (int i = 0; i != ranges.size(); i++) {
+				range(ranges.start(i), ranges.end(i));
+				mapped.position(base + ranges.start(i) * stride);
+				mapped.put(data);
+			}
+		} else {
+			GLState.bindBuffer(GL_ARRAY_BUFFER, vbo);
+			if (mode == Mode.ORPHAN) {
+				glBufferData(GL_ARRAY_BUFFER, (long) capacity * stride * Float.BYTES, GL_STREAM_DRAW);
+				// The orphaned buffer has undefined contents, so upload all.
+				range(0, capacity);
+				glBufferSubData(GL_ARRAY_BUFFER, 0, data);
+			} else {
+				for (int i = 0; i != ranges.size(); i++) {
+					range(ranges.start(i), ranges.end(i));
+					glBufferSubData(GL_ARRAY_BUFFER, (long) (base + ranges.start(i) * stride)
+							* Float.BYTES, data);
+				}
+			}
+		}
+		data.clear();
+		ranges.clear();
+	}
+
+	// Limits the client side copy to a range of vertices.
+	private void range(int start, int end) {
+		data.limit(end * stride);
+		data.position(start * stride);
+	}
+
+	private void waitFence(int segment) {
+		long fence = fences[segment];
+		if (fence == 0)
+			return;
+		int result;
+		do
+			result = GL32.glClientWaitSync(fence, GL32.GL_SYNC_FLUSH_COMMANDS_BIT, 1000000);
+		while (result == GL32.GL_TIMEOUT_EXPIRED);
+		GL32.glDeleteSync(fence);
+		fences[segment] = 0;
+	}
+
+	/**
+	 * activate this VAO
+	 */
+	public void bind() {
+		if (OpenGLApp.getGLMajor() >= 3)
+			GLState.bindVertexArray(id);
+		else {
+			GLState.bindBuffer(GL_ARRAY_BUFFER, vbo);
+			VertexArrayObject.setAttribPointers(layout);
+		}
+		for (VertexLayout.Attribute a : layout.getAttributes())
+			GLState.enableVertexAttribArray(a.index());
+	}
+
+	public void unbind() {
+		// Restore state. The enabled attribute arrays are part of the VAO, they
+		// only need to be disabled without VAOs.
+		if (OpenGLApp.getGLMajor() >= 3)
+			GLState.bindVertexArray(0);
+		else
+			for (VertexLayout.Attribute a : layout.getAttributes())
+				GLState.disableVertexAttribArray(a.index());
+	}
+
+	/**
+	 * draw this VAO from the buffer uploaded last
+	 */
+	public void draw() {
+		glDrawArrays(GL_TRIANGLES, segment * capacity, numberOfVertices);
+		if (mode == Mode.RING && GL.getCapabilities().OpenGL32) {
+			if (fences[segment] != 0)
+				GL32.glDeleteSync(fences[segment]);
+			fences[segment] = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+		}
+	}
+
+	/**
+	 * delete the fences, the buffer and this VAO
+	 */
+	public void cleanUp() {
+		unbind();
+		for (int i = 0; i != fences.length; i++)
+			if (fences[i] != 0) {
+				GL32.glDeleteSync(fences[i]);
+				fences[i] = 0;
+			}
+		if (mapped != null) {
+			GLState.bindBuffer(GL_ARRAY_BUFFER, vbo);
+			glUnmapBuffer(GL_ARRAY_BUFFER);
+		}
+		GLState.deleteBuffer(vbo);
+		if (OpenGLApp.getGLMajor() >= 3)
+			GLState.deleteVertexArray(id);
+	}
+}
@@ -11,6 +11,8 @@ import static org.lwjgl.opengl.GL20.glUniform1f;
  * GLSL shader uniform variable.
  */
 public class FloatUniform extends Uniform {
+
+  private float value;
   
   /**
    * Create a new named uniform binding for the specified shader program.
@@ -31,6 +33,10 @@ public class FloatUniform extends Uniform {
    *          The new value for the uniform variable.
    */
   public void set(float f) {
+    if (GLState.count(known && Float.floatToIntBits(value) == Float.floatToIntBits(f)))
+      return;
+    value = f;
+    known = true;
     glUniform1f(location, f);
   }
 }
@@ -0,0 +1,270 @@
+package ogl.app;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.lwjgl.opengl.GL21;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+
+//A cache of the OpenGL state that the classes of this package change: the
+//program in use, the bound VAO and buffers, the enabled vertex attribute
+//arrays and the bound textures. A call that would not change the state is not
+//passed to the driver. Uniform values are tracked by the Uniform classes.
+//
+//All state lives in one OpenGL context that is only used from the render
+//thread, so the cache is static. Code that changes the same state directly
+//must call invalidate() afterwards.
+//
+//The calls that were issued and skipped are counted per frame; OpenGLApp
+//calls endFrame() after each frame.
+public final class GLState {
+	// the value of a binding that is not known
+	private static final int UNKNOWN = -1;
+
+	private static int program = UNKNOWN;
+	private static int vertexArray = UNKNOWN;
+
+	// the buffer targets that are cached, and what is bound to them
+	private static final int[] bufferTargets = { GL_ARRAY_BUFFER, GL_ELEMENT_ARRAY_BUFFER,
+			GL21.GL_PIXEL_UNPACK_BUFFER, GL31.GL_UNIFORM_BUFFER };
+	private static final int[] buffers = new int[bufferTargets.length];
+
+	// the attribute arrays of each VAO whose state is known and those that are
+	// enabled, as two bit sets; 0 is also used without VAOs
+	private static final Map<Integer, long[]> attribArrays = new HashMap<Integer, long[]>();
+
+	// the active texture unit and the 2D texture bound to each unit
+	private static int activeTexture = UNKNOWN;
+	private static final int[] textures = new int[32];
+
+	// the counters of this frame and of the last completed frame
+	private static int issued, skipped;
+	private static int lastIssued, lastSkipped;
+
+	static {
+		invalidate();
+	}
+
+	private GLState() {
+	}
+
+	/**
+	 * Forgets all cached state, e.g. after other code changed it directly.
+	 */
+	public static void invalidate() {
+		program = UNKNOWN;
+		// Without VAOs there is only the default one.
+		vertexArray = OpenGLApp.getGLMajor() >= 3 ? UNKNOWN : 0;
+		Arrays.fill(buffers, UNKNOWN);
+		attribArrays.clear();
+		activeTexture = UNKNOWN;
+		Arrays.fill(textures, UNKNOWN);
+	}
+
+	/**
+	 * glUseProgram
+	 */
+	public static void useProgram(int id) {
+		if (count(program == id))
+			return;
+		glUseProgram(id);
+		program = id;
+	}
+
+	/**
+	 * glDeleteProgram
+	 */
+	public static void deleteProgram(int id) {
+		glDeleteProgram(id);
+		issued++;
+		if (program == id)
+			program = UNKNOWN;
+	}
+
+	/**
+	 * glBindVertexArray, needs OpenGL 3.0
+	 */
+	public static void bindVertexArray(int id) {
+		if (count(vertexArray == id))
+			return;
+		GL30.glBindVertexArray(id);
+		vertexArray = id;
+		// The element array binding is part of the VAO.
+		buffers[1] = UNKNOWN;
+	}
+
+	/**
+	 * glDeleteVertexArrays, needs OpenGL 3.0
+	 */
+	public static void deleteVertexArray(int id) {
+		GL30.glDeleteVertexArrays(id);
+		issued++;
+		if (vertexArray == id) {
+			vertexArray = 0;
+			buffers[1] = UNKNOWN;
+		}
+		attribArrays.remove(id);
+	}
+
+	/**
+	 * glBindBuffer
+	 */
+	public static void bindBuffer(int target, int id) {
+		int slot = bufferSlot(target);
+		if (count(slot >= 0 && buffers[slot] == id))
+			return;
+		glBindBuffer(target, id);
+		if (slot >= 0)
+			buffers[slot] = id;
+	}
+
+	/**
+	 * glDeleteBuffers
+	 */
+	public static void deleteBuffer(int id) {
+		glDeleteBuffers(id);
+		issued++;
+		// Deleting a buffer unbinds it.
+		for (int i = 0; i != buffers.length; i++)
+			if (buffers[i] == id)
+				buffers[i] = 0;
+	}
+
+	private static int bufferSlot(int target) {
+		for (int i = 0; i != bufferTargets.length; i++)
+			if (bufferTargets[i] == target)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * glEnableVertexAttribArray for the bound VAO
+	 */
+	public static void enableVertexAttribArray(int index) {
+		setVertexAttribArray(index, true);
+	}
+
+	/**
+	 * glDisableVertexAttribArray for the bound VAO
+	 */
+	public static void disableVertexAttribArray(int index) {
+		setVertexAttribArray(index, false);
+	}
+
+	private static void setVertexAttribArray(int index, boolean enable) {
+		long[] state = null;
+		if (vertexArray != UNKNOWN && index < 64) {
+			state = attribArrays.get(vertexArray);
+			if (state == null)
+				attribArrays.put(vertexArray, state = new long[2]);
+		}
+		long bit = 1L << index;
+		if (count(state != null && (state[0] & bit) != 0 && ((state[1] & bit) != 0) == enable))
+			return;
+		if (enable)
+			glEnableVertexAttribArray(index);
+		else
+			glDisableVertexAttribArray(index);
+		if (state != null) {
+			state[0] |= bit;
+			state[1] = enable ? state[1] | bit : state[1] & ~bit;
+		}
+	}
+
+	/**
+	 * glActiveTexture and glBindTexture for GL_TEXTURE_2D
+	 * @param unit the texture unit, 0 for GL_TEXTURE0
+	 */
+	public static void bindTexture(int unit, int id) {
+		if (unit >= textures.length) {
+			issued += 2;
+			glActiveTexture(GL_TEXTURE0 + unit);
+			glBindTexture(GL_TEXTURE_2D, id);
+			activeTexture = UNKNOWN;
+			return;
+		}
+		if (count(textures[unit] == id))
+			return;
+		activeTexture(unit);
+		glBindTexture(GL_TEXTURE_2D, id);
+		textures[unit] = id;
+	}
+
+	/**
+	 * glBindTexture for GL_TEXTURE_2D on the active texture unit
+	 */
+	public static void bindTexture(int id) {
+		if (activeTexture == UNKNOWN || activeTexture >= textures.length) {
+			issued++;
+			glBindTexture(GL_TEXTURE_2D, id);
+			Arrays.fill(textures, UNKNOWN);
+			return;
+		}
+		bindTexture(activeTexture, id);
+	}
+
+	/**
+	 * glActiveTexture
+	 * @param unit the texture unit, 0 for GL_TEXTURE0
+	 */
+	public static void activeTexture(int unit) {
+		if (count(activeTexture == unit))
+			return;
+		glActiveTexture(GL_TEXTURE0 + unit);
+		activeTexture = unit;
+	}
+
+	/**
+	 * glDeleteTextures
+	 */
+	public static void deleteTexture(int id) {
+		glDeleteTextures(id);
+		issued++;
+		for (int i = 0; i != textures.length; i++)
+			if (textures[i] == id)
+				textures[i] = 0;
+	}
+
+	/**
+	 * Counts a call that was skipped, or that was issued by the caller.
+	 * @param redundant whether the call would not change the state
+	 * @return redundant
+	 */
+	static boolean count(boolean redundant) {
+		if (redundant)
+			skipped++;
+		else
+			issued++;
+		return redundant;
+	}
+
+	/**
+	 * Completes the counters of a frame.
+	 */
+	public static void endFrame() {
+		lastIssued = issued;
+		lastSkipped = skipped;
+		issued = skipped = 0;
+	}
+
+	/**
+	 * @return the number of calls passed to the driver in the last frame
+	 */
+	public static int getIssuedCalls() {
+		return lastIssued;
+	}
+
+	/**
+	 * @return the number of redundant calls skipped in the last frame
+	 */
+	public static int getSkippedCalls() {
+		return lastSkipped;
+	}
+}
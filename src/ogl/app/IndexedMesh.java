@@ -0,0 +1,217 @@
+package ogl.app;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+//A triangle list stored as unique interleaved vertices plus an index buffer.
+//Three consecutive indices form one triangle. Build one with a Builder, which
+//welds vertices whose attributes are equal.
+public class IndexedMesh {
+	private final VertexLayout layout;
+	// interleaved vertex data, layout.getStride() floats per vertex
+	private final float[] vertexData;
+	private final int vertexCount;
+	private final int[] indices;
+
+	/**
+	 * Creates a mesh from already welded data.
+	 * @param layout the layout of the vertex data
+	 * @param vertexData the interleaved vertices, layout.getStride() floats each
+	 * @param indices the triangle list, three indices per triangle
+	 * @throws IllegalArgumentException if an index is out of range or the
+	 *         triangle list is incomplete
+	 */
+	public IndexedMesh(VertexLayout layout, float[] vertexData, int[] indices) {
+		if (vertexData.length % layout.getStride() != 0)
+			throw new IllegalArgumentException("Vertex data does not match the layout");
+		if (indices.length % 3 != 0)
+			throw new IllegalArgumentException("Index count is not a multiple of 3");
+		this.layout = layout;
+		this.vertexData = vertexData;
+		this.vertexCount = vertexData.length / layout.getStride();
+		this.indices = indices;
+		for (int i : indices)
+			if (i < 0 || i >= vertexCount)
+				throw new IllegalArgumentException("Index out of range: " + i);
+	}
+
+	/**
+	 * Welds a triangle list.
+	 * @param vertices three vertices per triangle
+	 * @param layout the attributes to store, and to compare when welding
+	 */
+	public static IndexedMesh weld(Vertex[] vertices, VertexLayout layout) {
+		return new Builder(layout).add(vertices).build();
+	}
+
+	public VertexLayout getLayout() {
+		return layout;
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public int getIndexCount() {
+		return indices.length;
+	}
+
+	public int getTriangleCount() {
+		return indices.length / 3;
+	}
+
+	/**
+	 * @return the interleaved vertex data, not a copy
+	 */
+	public float[] getVertexData() {
+		return vertexData;
+	}
+
+	/**
+	 * @return the indices, not a copy
+	 */
+	public int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * @return true, if every index fits into an unsigned short
+	 */
+	public boolean hasShortIndices() {
+		return vertexCount <= 1 << 16;
+	}
+
+	/**
+	 * @return the size of the vertex and the index data on the GPU in bytes
+	 */
+	public long getByteSize() {
+		return (long) vertexData.length * Float.BYTES
+				+ (long) indices.length * (hasShortIndices() ? Short.BYTES : Integer.BYTES);
+	}
+
+	/**
+	 * Writes the vertex data at the current position of a buffer.
+	 */
+	public void putVertexData(FloatBuffer buf) {
+		buf.put(vertexData);
+	}
+
+	@Override
+	public String toString() {
+		return vertexCount + " vertices, " + getTriangleCount() + " triangles, " + getByteSize()
+				+ " bytes";
+	}
+
+	// Collects triangle vertices and welds equal ones. Two vertices are equal if
+	// all attributes of the layout are equal, comparing the float bits with -0
+	// and 0 taken as the same value.
+	public static class Builder {
+		private final VertexLayout layout;
+		private final int stride;
+		// the scratch area for the vertex being added
+		private final FloatBuffer scratch;
+		private float[] data;
+		private int vertexCount;
+		private int[] indices = new int[96];
+		private int indexCount;
+		// open addressing hash table of vertex numbers, -1 marks a free slot
+		private int[] table = new int[64];
+
+		public Builder(VertexLayout layout) {
+			this.layout = layout;
+			this.stride = layout.getStride();
+			this.scratch = FloatBuffer.allocate(stride);
+			this.data = new float[32 * stride];
+			Arrays.fill(table, -1);
+		}
+
+		/**
+		 * Adds a vertex to the triangle list.
+		 * @return the index of the vertex in the welded mesh
+		 * @throws IllegalArgumentException if the vertex lacks an attribute of the layout
+		 */
+		public int add(Vertex v) {
+			scratch.clear();
+			layout.put(v, scratch);
+			float[] key = scratch.array();
+			for (int i = 0; i != stride; i++)
+				key[i] += 0.0f; // -0 to 0
+			int index = find(key);
+			if (indexCount == indices.length)
+				indices = Arrays.copyOf(indices, 2 * indices.length);
+			indices[indexCount++] = index;
+			return index;
+		}
+
+		/**
+		 * Adds several vertices to the triangle list.
+		 */
+		public Builder add(Vertex... vertices) {
+			for (Vertex v : vertices)
+				add(v);
+			return this;
+		}
+
+		public int getVertexCount() {
+			return vertexCount;
+		}
+
+		/**
+		 * @throws IllegalArgumentException if the number of added vertices is not a multiple of 3
+		 */
+		public IndexedMesh build() {
+			return new IndexedMesh(layout, Arrays.copyOf(data, vertexCount * stride),
+					Arrays.copyOf(indices, indexCount));
+		}
+
+		private int find(float[] key) {
+			int mask = table.length - 1;
+			for (int slot = hash(key, 0) & mask;; slot = (slot + 1) & mask) {
+				int v = table[slot];
+				if (v == -1)
+					break;
+				if (equal(key, v))
+					return v;
+			}
+
+			// A new vertex.
+			if (2 * (vertexCount + 1) > table.length)
+				rehash();
+			if ((vertexCount + 1) * stride > data.length)
+				data = Arrays.copyOf(data, 2 * data.length);
+			System.arraycopy(key, 0, data, vertexCount * stride, stride);
+			insert(vertexCount);
+			return vertexCount++;
+		}
+
+		private boolean equal(float[] key, int v) {
+			for (int i = 0, j = v * stride; i != stride; i++, j++)
+				if (Float.floatToIntBits(key[i]) != Float.floatToIntBits(data[j]))
+					return false;
+			return true;
+		}
+
+		private void insert(int v) {
+			int mask = table.length - 1;
+			int slot = hash(data, v * stride) & mask;
+			while (table[slot] != -1)
+				slot = (slot + 1) & mask;
+			table[slot] = v;
+		}
+
+		private void rehash() {
+			table = new int[2 * table.length];
+			Arrays.fill(table, -1);
+			for (int v = 0; v != vertexCount; v++)
+				insert(v);
+		}
+
+		private int hash(float[] a, int offset) {
+			int h = 1;
+			for (int i = offset, end = offset + stride; i != end; i++)
+				h = 31 * h + Float.floatToIntBits(a[i]);
+			// spread the bits, the table size is a power of 2
+			return h ^ (h >>> 16);
+		}
+	}
+}
@@ -0,0 +1,276 @@
+package ogl.app;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import ogl.vecmath.Color;
+import ogl.vecmath.Matrix;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL33;
+
+//Draws many copies of one mesh, each with its own model matrix and color, in
+//few draw calls.
+//
+//With OpenGL 3.3 the mesh is drawn once with glDrawArraysInstanced or
+//glDrawElementsInstanced. The model matrices and colors are per-instance
+//vertex attributes (glVertexAttribDivisor) in a second buffer of the mesh's
+//VAO.
+//
+//Older contexts, down to OpenGL 2.1, draw a mesh that holds BATCH_SIZE copies
+//of the original one. Each vertex carries the number of its copy, which
+//selects the model matrix and color from uniform arrays. One draw call then
+//renders up to BATCH_SIZE instances.
+//
+//Shaders read the instance data through two functions that work on both
+//paths. Insert getVertexShaderDeclarations() into the vertex shader before
+//main() and call getInstanceMatrix() and getInstanceColor().
+public class InstancedMesh {
+	// The number of instances per draw call without hardware instancing. A
+	// matrix and a color take 20 of the at least 512 uniform components an
+	// OpenGL 2.1 vertex shader has.
+	public static final int BATCH_SIZE = 16;
+
+	// floats per instance: a column major 4x4 matrix and an RGB color
+	private static final int INSTANCE_FLOATS = 19;
+
+	private final boolean hardware;
+	private final int capacity;
+	// the mesh, replicated BATCH_SIZE times without hardware instancing
+	private final VertexArrayObject vao;
+	// the number of indices of one copy of the mesh
+	private final int copySize;
+	// the instance data, and whether it changed since the last draw
+	private final FloatBuffer instances;
+	private boolean dirty;
+	private int numberOfInstances;
+	// hardware instancing: the number of instances in the buffer
+	private int uploaded;
+
+	// hardware instancing: the buffer with the per-instance attributes
+	private final int instanceVbo;
+
+	// batching: the uniform locations and the data of one batch
+	private int matricesLocation = -1, colorsLocation = -1;
+	private final FloatBuffer batchMatrices, batchColors;
+
+	/**
+	 * Creates an instanced mesh, all instances use the identity matrix and
+	 * white until set.
+	 * @param mesh the mesh to draw
+	 * @param capacity the maximum number of instances
+	 */
+	public InstancedMesh(IndexedMesh mesh, int capacity) throws Exception {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be positive");
+		this.hardware = isHardwareInstancingSupported();
+		this.capacity = capacity;
+		this.numberOfInstances = capacity;
+		this.copySize = mesh.getIndexCount();
+
+		instances = BufferUtils.createFloatBuffer(capacity * INSTANCE_FLOATS);
+		float[] identity = { 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 1, 1, 1 };
+		for (int i = 0; i != capacity; i++)
+			instances.put(identity);
+		instances.rewind();
+		dirty = true;
+
+		if (hardware) {
+			vao = new VertexArrayObject(mesh);
+			vao.bind();
+			instanceVbo = glGenBuffers();
+			GLState.bindBuffer(GL_ARRAY_BUFFER, instanceVbo);
+			glBufferData(GL_ARRAY_BUFFER, instances, GL_STREAM_DRAW);
+			int stride = INSTANCE_FLOATS * Float.BYTES;
+			for (int column = 0; column != 4; column++) {
+				int idx = VertexArrayObject.instanceMatrixAttribIdx + column;
+				glVertexAttribPointer(idx, 4, GL_FLOAT, false, stride, 4 * column * Float.BYTES);
+				GL33.glVertexAttribDivisor(idx, 1);
+				GLState.enableVertexAttribArray(idx);
+			}
+			int idx = VertexArrayObject.instanceColorAttribIdx;
+			glVertexAttribPointer(idx, 3, GL_FLOAT, false, stride, 16 * Float.BYTES);
+			GL33.glVertexAttribDivisor(idx, 1);
+			GLState.enableVertexAttribArray(idx);
+			vao.unbind();
+			batchMatrices = batchColors = null;
+		} else {
+			vao = new VertexArrayObject(replicate(mesh, BATCH_SIZE));
+			instanceVbo = 0;
+			batchMatrices = BufferUtils.createFloatBuffer(16 * BATCH_SIZE);
+			batchColors = BufferUtils.createFloatBuffer(3 * BATCH_SIZE);
+		}
+	}
+
+	/**
+	 * @return whether the current context supports glVertexAttribDivisor and
+	 *         instanced draw calls
+	 */
+	public static boolean isHardwareInstancingSupported() {
+		return OpenGLApp.getGLMajor() >= 3 && GL.getCapabilities().OpenGL33;
+	}
+
+	/**
+	 * The GLSL declarations of the instance data for the current context, to be
+	 * inserted into a vertex shader before main(). They define the functions
+	 * <code>mat4 getInstanceMatrix()</code> and <code>vec3 getInstanceColor()</code>.
+	 */
+	public static String[] getVertexShaderDeclarations() {
+		if (isHardwareInstancingSupported())
+			return new String[] {
+					"in mat4 instanceMatrix;",
+					"in vec3 instanceColor;",
+					"mat4 getInstanceMatrix() { return instanceMatrix; }",
+					"vec3 getInstanceColor() { return instanceColor; }" };
+		return new String[] {
+				OpenGLApp.getGLMajor() >= 3 ? "in float instance;" : "attribute float instance;",
+				"uniform mat4 instanceMatrices[" + BATCH_SIZE + "];",
+				"uniform vec3 instanceColors[" + BATCH_SIZE + "];",
+				"mat4 getInstanceMatrix() { return instanceMatrices[int(instance)]; }",
+				"vec3 getInstanceColor() { return instanceColors[int(instance)]; }" };
+	}
+
+	/**
+	 * Binds the instance attributes to their locations. This needs to be done
+	 * *before* linking the program.
+	 */
+	public static void bindAttribLocations(int program) {
+		glBindAttribLocation(program, VertexArrayObject.instanceMatrixAttribIdx, "instanceMatrix");
+		glBindAttribLocation(program, VertexArrayObject.instanceColorAttribIdx, "instanceColor");
+		glBindAttribLocation(program, VertexArrayObject.instanceAttribIdx, "instance");
+	}
+
+	/**
+	 * Looks up the uniform arrays used without hardware instancing. This needs
+	 * to be done *after* linking the program.
+	 */
+	public void setProgram(int program) {
+		if (!hardware) {
+			matricesLocation = glGetUniformLocation(program, "instanceMatrices");
+			colorsLocation = glGetUniformLocation(program, "instanceColors");
+		}
+	}
+
+	public boolean isHardwareInstanced() {
+		return hardware;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets the number of instances to draw, from the first one.
+	 */
+	public void setInstanceCount(int n) {
+		if (n < 0 || n > capacity)
+			throw new IllegalArgumentException("Instance count out of range: " + n);
+		numberOfInstances = n;
+		// The buffer was orphaned, the instances past the last upload are undefined.
+		if (n > uploaded)
+			dirty = true;
+	}
+
+	public int getInstanceCount() {
+		return numberOfInstances;
+	}
+
+	/**
+	 * Sets the model matrix and the color of one instance.
+	 */
+	public void set(int instance, Matrix model, Color color) {
+		instances.position(instance * INSTANCE_FLOATS);
+		model.fillBuffer(instances);
+		color.fillBuffer(instances);
+		instances.rewind();
+		dirty = true;
+	}
+
+	/**
+	 * Draws all instances. The shader program set with setProgram must be in
+	 * use.
+	 * @return the number of draw calls issued
+	 */
+	public int draw() {
+		if (numberOfInstances == 0)
+			return 0;
+		vao.bind();
+		int calls = 0;
+		if (hardware) {
+			if (dirty) {
+				// Orphan the buffer, the previous frame may still draw from it.
+				instances.limit(numberOfInstances * INSTANCE_FLOATS);
+				GLState.bindBuffer(GL_ARRAY_BUFFER, instanceVbo);
+				glBufferData(GL_ARRAY_BUFFER, (long) capacity * INSTANCE_FLOATS * Float.BYTES,
+						GL_STREAM_DRAW);
+				glBufferSubData(GL_ARRAY_BUFFER, 0, instances);
+				instances.clear();
+				uploaded = numberOfInstances;
+				dirty = false;
+			}
+			vao.drawInstanced(numberOfInstances);
+			calls++;
+		} else {
+			for (int first = 0; first < numberOfInstances; first += BATCH_SIZE) {
+				int count = Math.min(BATCH_SIZE, numberOfInstances - first);
+				batchMatrices.clear();
+				batchColors.clear();
+				for (int i = first; i != first + count; i++) {
+					int base = i * INSTANCE_FLOATS;
+					for (int k = 0; k != 16; k++)
+						batchMatrices.put(instances.get(base + k));
+					for (int k = 16; k != INSTANCE_FLOATS; k++)
+						batchColors.put(instances.get(base + k));
+				}
+				batchMatrices.flip();
+				batchColors.flip();
+				glUniformMatrix4fv(matricesLocation, false, batchMatrices);
+				glUniform3fv(colorsLocation, batchColors);
+				vao.draw(count * copySize);
+				calls++;
+			}
+		}
+		vao.unbind();
+		return calls;
+	}
+
+	/**
+	 * delete allocated buffers
+	 */
+	public void cleanUp() {
+		vao.cleanUp();
+		if (instanceVbo != 0)
+			GLState.deleteBuffer(instanceVbo);
+	}
+
+	/**
+	 * Copies a mesh, each vertex tagged with the number of its copy.
+	 */
+	static IndexedMesh replicate(IndexedMesh mesh, int copies) {
+		VertexLayout.Attribute[] attributes = mesh.getLayout().getAttributes();
+		attributes = Arrays.copyOf(attributes, attributes.length + 1);
+		attributes[attributes.length - 1] = VertexLayout.Attribute.INSTANCE;
+		VertexLayout layout = new VertexLayout(attributes);
+
+		float[] data = mesh.getVertexData();
+		int[] indices = mesh.getIndices();
+		int stride = mesh.getLayout().getStride(), vertexCount = mesh.getVertexCount();
+		float[] copyData = new float[copies * vertexCount * layout.getStride()];
+		int[] copyIndices = new int[copies * indices.length];
+		for (int c = 0, d = 0, i = 0; c != copies; c++) {
+			for (int v = 0; v != vertexCount; v++) {
+				System.arraycopy(data, v * stride, copyData, d, stride);
+				d += stride;
+				copyData[d++] = c;
+			}
+			for (int index : indices)
+				copyIndices[i++] = index + c * vertexCount;
+		}
+		return new IndexedMesh(layout, copyData, copyIndices);
+	}
+}
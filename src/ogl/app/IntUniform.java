@@ -12,6 +12,8 @@ import static org.lwjgl.opengl.GL20.glUniform1i;
  */
 public class IntUniform extends Uniform {
 
+  private int value;
+
   /**
    * Create a new named uniform binding for the specified shader program.
    * 
@@ -31,6 +33,10 @@ public class IntUniform extends Uniform {
    *          The new value for the uniform variable.
    */
   public void set(int f) {
+    if (GLState.count(known && value == f))
+      return;
+    value = f;
+    known = true;
     glUniform1i(location, f);
   }
 }
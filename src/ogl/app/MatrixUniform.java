@@ -4,7 +4,6 @@
  *******************************************************************************/
 package ogl.app;
 
-import static ogl.vecmathimp.FactoryDefault.vecmath;
 import static org.lwjgl.opengl.GL20.glUniformMatrix4fv;
 
 import java.nio.FloatBuffer;
@@ -13,9 +12,6 @@ import ogl.vecmath.Matrix;
 
 import org.lwjgl.BufferUtils;
 
-
-//Select the factory we want to use.
-
 /**
  * Encapsulate the transfer of matrix values from the OpenGL application to an
  * GLSL shader uniform variable.
@@ -24,6 +20,11 @@ public class MatrixUniform extends Uniform {
 
   private final FloatBuffer buffer;
 
+  /**
+   * The value last transferred.
+   */
+  private final float[] value = new float[16];
+
   /**
    * Create a new named uniform binding for the specified shader program.
    * 
@@ -35,20 +36,28 @@ public class MatrixUniform extends Uniform {
   public MatrixUniform(int program, String name) {
     super(program, name);
     buffer = BufferUtils.createFloatBuffer(16);
-    buffer.put(vecmath.identityMatrix().asArray());
-    buffer.rewind();
   }
 
   /**
-   * Transfer a new value to the shader uniform variable.
+   * Transfer a new value to the shader uniform variable. Nothing is
+   * transferred if the value did not change.
    * 
    * @param m
    *          The new matix value for the uniform variable.
    */
   public void set(Matrix m) {
+    buffer.clear();
+    m.fillBuffer(buffer);
+    buffer.flip();
+
+    boolean same = known;
+    for (int i = 0; same && i != 16; i++)
+      same = Float.floatToIntBits(value[i]) == Float.floatToIntBits(buffer.get(i));
+    if (GLState.count(same))
+      return;
+    buffer.get(value);
     buffer.rewind();
-    buffer.put(m.asArray());
-    buffer.rewind();
+    known = true;
 
     glUniformMatrix4fv(location, false, buffer);
   }
@@ -0,0 +1,399 @@
+package ogl.app;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//Reorders the triangles and vertices of an IndexedMesh for the GPU, before
+//upload. Runs purely on the CPU.
+//
+//1. The triangles are reordered with Tipsify (Sander, Nehab, Barczak: "Fast
+//   Triangle Reordering for Vertex Locality and Reduced Overdraw", 2007), so
+//   that the post-transform vertex cache hits more often.
+//2. The Tipsify output is cut into clusters, which are sorted so that
+//   triangles facing outwards from the center of the mesh are drawn first,
+//   reducing overdraw from any viewpoint.
+//3. The vertices are renumbered in the order in which the index buffer first
+//   uses them, so that vertex fetches read memory front to back.
+//
+//The quality of the vertex cache order is measured by ACMR (average cache
+//miss ratio, vertex transforms per triangle) and ATVR (average transform to
+//vertex ratio, vertex transforms per vertex, 1 is optimal).
+public final class MeshOptimizer {
+	// The cache size Tipsify optimizes for and the statistics simulate. A
+	// FIFO of this size is a conservative model of current GPUs.
+	public static final int DEFAULT_CACHE_SIZE = 16;
+
+	// A cluster ends where the ACMR of its triangles is at most this value.
+	// Lower values give fewer, larger clusters and a better cache order,
+	// higher values give more clusters and less overdraw.
+	public static final float DEFAULT_OVERDRAW_THRESHOLD = 1.05f;
+
+	private MeshOptimizer() {
+	}
+
+	/**
+	 * Optimizes a mesh for the vertex cache, for overdraw and for vertex
+	 * fetch, with the default parameters.
+	 * @return a new mesh with the same triangles
+	 */
+	public static IndexedMesh optimize(IndexedMesh mesh) {
+		return optimizeVertexFetch(optimizeOverdraw(mesh, DEFAULT_CACHE_SIZE,
+				DEFAULT_OVERDRAW_THRESHOLD));
+	}
+
+	/**
+	 * Reorders triangles for the post-transform vertex cache with Tipsify.
+	 * @param indices the triangle list
+	 * @param vertexCount the number of vertices the indices refer to
+	 * @param cacheSize the number of vertices in the cache
+	 * @return the reordered triangle list, the triangles keep their winding
+	 */
+	public static int[] optimizeVertexCache(int[] indices, int vertexCount, int cacheSize) {
+		return tipsify(indices, vertexCount, cacheSize, 0, null).indices;
+	}
+
+	/**
+	 * Reorders triangles for the vertex cache with Tipsify, then sorts the
+	 * resulting clusters of triangles by their occlusion potential: clusters
+	 * far out from the center of the mesh and facing away from it come first.
+	 * Meshes without positions are only optimized for the vertex cache.
+	 * @param cacheSize the number of vertices in the cache
+	 * @param threshold the ACMR below which a cluster may end, see
+	 *        {@link #DEFAULT_OVERDRAW_THRESHOLD}
+	 * @return a new mesh with the same vertices
+	 */
+	public static IndexedMesh optimizeOverdraw(IndexedMesh mesh, int cacheSize, float threshold) {
+		int[] indices = mesh.getIndices();
+		VertexLayout layout = mesh.getLayout();
+		if (!layout.contains(VertexLayout.Attribute.POSITION))
+			return new IndexedMesh(layout, mesh.getVertexData(),
+					optimizeVertexCache(indices, mesh.getVertexCount(), cacheSize));
+
+		Tipsify t = tipsify(indices, mesh.getVertexCount(), cacheSize, threshold,
+				new int[indices.length / 3 + 1]);
+		return new IndexedMesh(layout, mesh.getVertexData(), sortClusters(mesh, t));
+	}
+
+	/**
+	 * Renumbers the vertices in the order of their first use by the index
+	 * buffer. Vertices that no triangle uses are removed.
+	 * @return a new mesh with the same triangles
+	 */
+	public static IndexedMesh optimizeVertexFetch(IndexedMesh mesh) {
+		int stride = mesh.getLayout().getStride();
+		int[] indices = mesh.getIndices();
+		float[] data = mesh.getVertexData();
+
+		int[] remap = new int[mesh.getVertexCount()];
+		Arrays.fill(remap, -1);
+		int[] newIndices = new int[indices.length];
+		int count = 0;
+		for (int i = 0; i != indices.length; i++) {
+			int v = indices[i];
+			if (remap[v] == -1)
+				remap[v] = count++;
+			newIndices[i] = remap[v];
+		}
+
+		float[] newData = new float[count * stride];
+		for (int v = 0; v != remap.length; v++)
+			if (remap[v] != -1)
+				System.arraycopy(data, v * stride, newData, remap[v] * stride, stride);
+		return new IndexedMesh(mesh.getLayout(), newData, newIndices);
+	}
+
+	/**
+	 * Simulates a FIFO vertex cache.
+	 * @return the number of vertex transforms, i.e. cache misses
+	 */
+	public static int transforms(int[] indices, int cacheSize) {
+		int vertexCount = 0;
+		for (int i : indices)
+			vertexCount = Math.max(vertexCount, i + 1);
+		// A vertex is in the cache if it entered it at most cacheSize misses ago.
+		int[] entered = new int[vertexCount];
+		Arrays.fill(entered, Integer.MIN_VALUE / 2);
+		int misses = 0;
+		for (int i : indices) {
+			if (misses - entered[i] > cacheSize) {
+				entered[i] = misses;
+				misses++;
+			}
+		}
+		return misses;
+	}
+
+	/**
+	 * @return the average number of vertex transforms per triangle in a FIFO
+	 *         cache, between 0.5 for large regular meshes and 3
+	 */
+	public static float acmr(int[] indices, int cacheSize) {
+		return indices.length == 0 ? 0 : 3f * transforms(indices, cacheSize) / indices.length;
+	}
+
+	/**
+	 * @return the average number of transforms per vertex in a FIFO cache, 1
+	 *         is optimal
+	 */
+	public static float atvr(int[] indices, int vertexCount, int cacheSize) {
+		return vertexCount == 0 ? 0 : (float) transforms(indices, cacheSize) / vertexCount;
+	}
+
+	/**
+	 * @return the ACMR and ATVR of two versions of a mesh for the default cache size
+	 */
+	public static String report(IndexedMesh before, IndexedMesh after) {
+		return String.format("ACMR %.3f -> %.3f, ATVR %.3f -> %.3f (FIFO cache of %d vertices)",
+				acmr(before.getIndices(), DEFAULT_CACHE_SIZE),
+				acmr(after.getIndices(), DEFAULT_CACHE_SIZE),
+				atvr(before.getIndices(), before.getVertexCount(), DEFAULT_CACHE_SIZE),
+				atvr(after.getIndices(), after.getVertexCount(), DEFAULT_CACHE_SIZE),
+				DEFAULT_CACHE_SIZE);
+	}
+
+	// The result of tipsify: the reordered triangles and, if requested, the
+	// first triangle of each cluster followed by the triangle count.
+	private static class Tipsify {
+		int[] indices;
+		int[] clusters;
+		int clusterCount;
+	}
+
+	/**
+	 * Tipsify. Fans around one vertex at a time, emitting all of its remaining
+	 * triangles, then continues with the most recently used adjacent vertex
+	 * that will still be in the cache after its own triangles are emitted.
+	 * @param clusters receives cluster starts, or null
+	 */
+	private static Tipsify tipsify(int[] indices, int vertexCount, int cacheSize,
+			float threshold, int[] clusters) {
+		int triangleCount = indices.length / 3;
+
+		// Vertex-triangle adjacency in compressed rows.
+		int[] live = new int[vertexCount];
+		for (int i : indices)
+			live[i]++;
+		int[] offsets = new int[vertexCount + 1];
+		for (int v = 0; v != vertexCount; v++)
+			offsets[v + 1] = offsets[v] + live[v];
+		int[] adjacency = new int[indices.length];
+		int[] fill = Arrays.copyOf(offsets, vertexCount);
+		for (int i = 0; i != indices.length; i++)
+			adjacency[fill[indices[i]]++] = i / 3;
+
+		int[] cacheTime = new int[vertexCount];
+		boolean[] emitted = new boolean[triangleCount];
+		int[] deadEnd = new int[indices.length];
+		int deadEndSize = 0;
+		int[] candidates = new int[indices.length];
+
+		int[] out = new int[indices.length];
+		int outSize = 0;
+		int time = cacheSize + 1;
+		int scan = 0;
+		int clusterCount = 0, clusterStart = 0, clusterMisses = 0;
+
+		int fan = triangleCount == 0 ? -1 : indices[0];
+		while (fan >= 0) {
+			int candidateCount = 0;
+			for (int a = offsets[fan]; a != offsets[fan + 1]; a++) {
+				int t = adjacency[a];
+				if (emitted[t])
+					continue;
+				emitted[t] = true;
+				for (int k = 3 * t; k != 3 * t + 3; k++) {
+					int v = indices[k];
+					out[outSize++] = v;
+					deadEnd[deadEndSize++] = v;
+					candidates[candidateCount++] = v;
+					live[v]--;
+					if (time - cacheTime[v] > cacheSize) {
+						cacheTime[v] = time++;
+						clusterMisses++;
+					}
+				}
+			}
+
+			// The next fanning vertex: the one that entered the cache last, among
+			// those that will not be evicted while their triangles are emitted.
+			int next = -1, best = -1;
+			for (int c = 0; c != candidateCount; c++) {
+				int v = candidates[c];
+				if (live[v] == 0)
+					continue;
+				int priority = 0;
+				if (time - cacheTime[v] + 2 * live[v] <= cacheSize)
+					priority = time - cacheTime[v];
+				if (priority > best) {
+					best = priority;
+					next = v;
+				}
+			}
+
+			if (next == -1) {
+				// Dead end: fall back to a recently used vertex with triangles
+				// left, or scan for any. The cache order breaks here, so this is
+				// where a cluster may end.
+				while (deadEndSize > 0 && next == -1) {
+					int v = deadEnd[--deadEndSize];
+					if (live[v] > 0)
+						next = v;
+				}
+				while (next == -1 && scan < vertexCount) {
+					if (live[scan] > 0)
+						next = scan;
+					scan++;
+				}
+				int clusterTriangles = outSize / 3 - clusterStart;
+				if (clusters != null && clusterTriangles > 0
+						&& clusterMisses <= threshold * clusterTriangles) {
+					clusters[clusterCount++] = clusterStart;
+					clusterStart = outSize / 3;
+					clusterMisses = 0;
+				}
+			}
+			fan = next;
+		}
+
+		Tipsify result = new Tipsify();
+		result.indices = out;
+		if (clusters != null) {
+			if (clusterStart < triangleCount)
+				clusters[clusterCount++] = clusterStart;
+			clusters[clusterCount] = triangleCount;
+			result.clusters = clusters;
+			result.clusterCount = clusterCount;
+		}
+		return result;
+	}
+
+	/**
+	 * Sorts the clusters of a Tipsify result by decreasing occlusion
+	 * potential, the distance of the cluster centroid from the mesh centroid
+	 * along the cluster normal.
+	 */
+	private static int[] sortClusters(IndexedMesh mesh, Tipsify t) {
+		float[] data = mesh.getVertexData();
+		int stride = mesh.getLayout().getStride();
+		int position = mesh.getLayout().getOffset(VertexLayout.Attribute.POSITION);
+		int[] indices = t.indices;
+		int clusterCount = t.clusterCount;
+
+		// Area weighted centroids and normals of the clusters and the mesh.
+		double[] cluster = new double[6 * clusterCount];
+		double mx = 0, my = 0, mz = 0, meshArea = 0;
+		for (int c = 0; c != clusterCount; c++) {
+			double cx = 0, cy = 0, cz = 0, nx = 0, ny = 0, nz = 0, area = 0;
+			for (int tri = t.clusters[c]; tri != t.clusters[c + 1]; tri++) {
+				int p0 = indices[3 * tri] * stride + position;
+				int p1 = indices[3 * tri + 1] * stride + position;
+				int p2 = indices[3 * tri + 2] * stride + position;
+				double ux = data[p1] - data[p0], uy = data[p1 + 1] - data[p0 + 1], uz = data[p1 + 2]
+						- data[p0 + 2];
+				double vx = data[p2] - data[p0], vy = data[p2 + 1] - data[p0 + 1], vz = data[p2 + 2]
+						- data[p0 + 2];
+				// The cross product has twice the area as length.
+				double x = uy * vz - uz * vy, y = uz * vx - ux * vz, z = ux * vy - uy * vx;
+				double a = Math.sqrt(x * x + y * y + z * z);
+				nx += x;
+				ny += y;
+				nz += z;
+				cx += a * (data[p0] + data[p1] + data[p2]) / 3;
+				cy += a * (data[p0 + 1] + data[p1 + 1] + data[p2 + 1]) / 3;
+				cz += a * (data[p0 + 2] + data[p1 + 2] + data[p2 + 2]) / 3;
+				area += a;
+			}
+			mx += cx;
+			my += cy;
+			mz += cz;
+			meshArea += area;
+			if (area > 0) {
+				cx /= area;
+				cy /= area;
+				cz /= area;
+			}
+			double n = Math.sqrt(nx * nx + ny * ny + nz * nz);
+			if (n > 0) {
+				nx /= n;
+				ny /= n;
+				nz /= n;
+			}
+			cluster[6 * c] = cx;
+			cluster[6 * c + 1] = cy;
+			cluster[6 * c + 2] = cz;
+			cluster[6 * c + 3] = nx;
+			cluster[6 * c + 4] = ny;
+			cluster[6 * c + 5] = nz;
+		}
+		if (meshArea > 0) {
+			mx /= meshArea;
+			my /= meshArea;
+			mz /= meshArea;
+		}
+
+		Integer[] order = new Integer[clusterCount];
+		double[] potential = new double[clusterCount];
+		for (int c = 0; c != clusterCount; c++) {
+			order[c] = c;
+			potential[c] = (cluster[6 * c] - mx) * cluster[6 * c + 3] + (cluster[6 * c + 1] - my)
+					* cluster[6 * c + 4] + (cluster[6 * c + 2] - mz) * cluster[6 * c + 5];
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(potential[b], potential[a]));
+
+		int[] sorted = new int[indices.length];
+		int pos = 0;
+		for (int c : order) {
+			int from = 3 * t.clusters[c], to = 3 * t.clusters[c + 1];
+			System.arraycopy(indices, from, sorted, pos, to - from);
+			pos += to - from;
+		}
+		return sorted;
+	}
+
+	/**
+	 * Optimizes a sphere made of a grid of quads in random order and prints the ACMR and
+	 * ATVR before and after.
+	 * @param args [grid size]
+	 */
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		VertexLayout layout = new VertexLayout(VertexLayout.Attribute.POSITION);
+
+		// A n x n grid of quads on a sphere, triangles in random order.
+		float[] data = new float[3 * (n + 1) * (n + 1)];
+		for (int y = 0, i = 0; y <= n; y++) {
+			double theta = Math.PI * y / n;
+			for (int x = 0; x <= n; x++, i += 3) {
+				double phi = 2 * Math.PI * x / n;
+				data[i] = (float) (Math.sin(theta) * Math.cos(phi));
+				data[i + 1] = (float) Math.cos(theta);
+				data[i + 2] = (float) (Math.sin(theta) * Math.sin(phi));
+			}
+		}
+		int[] quads = new int[n * n];
+		for (int q = 0; q != quads.length; q++)
+			quads[q] = q;
+		Random random = new Random(1);
+		for (int q = quads.length - 1; q > 0; q--) {
+			int r = random.nextInt(q + 1), tmp = quads[q];
+			quads[q] = quads[r];
+			quads[r] = tmp;
+		}
+		int[] indices = new int[6 * n * n];
+		int i = 0;
+		for (int q : quads) {
+			int v = q / n * (n + 1) + q % n;
+			int[] quad = { v, v + n + 1, v + 1, v + 1, v + n + 1, v + n + 2 };
+			System.arraycopy(quad, 0, indices, i, 6);
+			i += 6;
+		}
+
+		IndexedMesh mesh = new IndexedMesh(layout, data, indices);
+		long start = System.nanoTime();
+		IndexedMesh optimized = optimize(mesh);
+		long time = System.nanoTime() - start;
+		System.out.println(mesh);
+		System.out.println(report(mesh, optimized));
+		System.out.printf("optimized in %.1f ms%n", time / 1e6);
+	}
+}
@@ -0,0 +1,185 @@
+package ogl.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A directory of prebuilt mipmap chains. The chain of an image file is stored
+ * under the SHA-1 hash of the file's contents, so a changed file gets a new
+ * entry and a moved or copied file finds its old one. An entry is
+ * memory-mapped when loaded and its levels are passed to OpenGL straight from
+ * the mapping; the image is neither decoded nor filtered again.
+ * <p>
+ * An entry holds a header followed by the pixels of all levels:
+ *
+ * <pre>
+ * int magic, version, filter, internalFormat, format, type, alignment, levels
+ * int width, height   for each level
+ * byte[]             the pixels of each level
+ * </pre>
+ *
+ * Entries that cannot be read are built again. The methods may be called from
+ * several threads.
+ */
+public final class MipCache {
+
+  private static final int MAGIC = 0x4d495043; // "MIPC"
+  private static final int VERSION = 1;
+  private static final int HEADER_INTS = 8;
+
+  private final File directory;
+  private final MipChain.Filter filter;
+
+  /**
+   * Create a cache.
+   *
+   * @param directory
+   *          The directory of the entries, created if needed.
+   * @param filter
+   *          The filter for new chains.
+   */
+  public MipCache(File directory, MipChain.Filter filter) {
+    this.directory = directory;
+    this.filter = filter;
+  }
+
+  /**
+   * Load the mipmap chain of an image file, from the cache if there is an
+   * entry, otherwise by decoding and filtering the image and adding an entry.
+   *
+   * @param file
+   *          The file containing the image (PNG, JPEG, BMP, GIF).
+   * @throws IOException
+   *           If the image file cannot be read.
+   */
+  public MipChain load(File file) throws IOException {
+    File entry = new File(directory, hash(file) + "-" + filter + ".mip");
+    if (entry.isFile()) {
+      MipChain levels = read(entry);
+      if (levels != null)
+        return levels;
+    }
+    MipChain levels = MipChain.generate(TextureData.read(file), filter);
+    try {
+      write(entry, levels);
+    } catch (IOException e) {
+      // The cache is only an optimization.
+      System.err.println("Cannot write mipmap cache " + entry + ": "
+          + e.getMessage());
+    }
+    return levels;
+  }
+
+  /**
+   * The hex encoded SHA-1 hash of a file's contents.
+   */
+  private static String hash(File file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform supports SHA-1.
+      throw new AssertionError(e);
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(),
+        StandardOpenOption.READ)) {
+      digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size()));
+    }
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest())
+      hex.append(String.format("%02x", b));
+    return hex.toString();
+  }
+
+  /**
+   * Map an entry, or return null if it is not valid.
+   */
+  private MipChain read(File entry) {
+    MappedByteBuffer map;
+    try (FileChannel channel = FileChannel.open(entry.toPath(),
+        StandardOpenOption.READ)) {
+      map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } catch (IOException e) {
+      return null;
+    }
+    try {
+      if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION
+          || map.getInt(8) != filter.ordinal())
+        return null;
+      int internalFormat = map.getInt(12), format = map.getInt(16);
+      int type = map.getInt(20), alignment = map.getInt(24);
+      int n = map.getInt(28);
+      if (n <= 0 || n > 32)
+        return null;
+      TextureData[] levels = new TextureData[n];
+      long offset = 4 * (HEADER_INTS + 2 * n);
+      for (int i = 0; i != n; i++) {
+        int width = map.getInt(4 * (HEADER_INTS + 2 * i));
+        int height = map.getInt(4 * (HEADER_INTS + 2 * i + 1));
+        TextureData level = new TextureData(null, width, height,
+            internalFormat, format, type, alignment);
+        long size = (long) width * height * level.getPixelSize();
+        if (width <= 0 || height <= 0 || offset + size > map.capacity())
+          return null;
+        ByteBuffer pixels = map.duplicate();
+        pixels.position((int) offset).limit((int) (offset + size));
+        levels[i] = level.withPixels(pixels.slice(), width, height);
+        offset += size;
+      }
+      return new MipChain(levels);
+    } catch (IndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Write an entry to a temporary file and move it into place, so that no
+   * reader sees a partial entry.
+   */
+  private void write(File entry, MipChain levels) throws IOException {
+    Files.createDirectories(directory.toPath());
+    Path tmp = Files.createTempFile(directory.toPath(), "mip", ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tmp,
+          StandardOpenOption.WRITE)) {
+        int n = levels.getLevelCount();
+        TextureData base = levels.getLevel(0);
+        ByteBuffer header = ByteBuffer.allocate(4 * (HEADER_INTS + 2 * n));
+        header.putInt(MAGIC).putInt(VERSION).putInt(filter.ordinal())
+            .putInt(base.internalFormat).putInt(base.format)
+            .putInt(base.type).putInt(base.alignment).putInt(n);
+        for (int i = 0; i != n; i++)
+          header.putInt(levels.getLevel(i).width)
+              .putInt(levels.getLevel(i).height);
+        header.flip();
+        while (header.hasRemaining())
+          channel.write(header);
+        for (int i = 0; i != n; i++) {
+          TextureData level = levels.getLevel(i);
+          ByteBuffer pixels = level.pixels.duplicate();
+          pixels.position(0).limit(level.getByteSize());
+          while (pixels.hasRemaining())
+            channel.write(pixels);
+        }
+      }
+      try {
+        Files.move(tmp, entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package ogl.app;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * The mipmap levels of a texture image, from the full size image down to one
+ * pixel. Each level is half the size of the one before and filtered from it on
+ * the CPU, so no glGenerateMipmap is needed and the chain can be cached on
+ * disk, see {@link MipCache}.
+ * <p>
+ * The components are filtered as they are stored, without gamma correction.
+ * The rows of a level are filtered in parallel.
+ */
+public final class MipChain {
+
+  /**
+   * The filter that reduces one level to the next.
+   */
+  public enum Filter {
+    /**
+     * The average of the pixels each pixel covers. Fast, slightly blurry.
+     */
+    BOX,
+    /**
+     * A sinc windowed with a Kaiser window. Sharper than BOX, at the cost of
+     * more samples per pixel.
+     */
+    KAISER
+  }
+
+  // The width of the Kaiser filter in pixels of the smaller level on either
+  // side, and the shape parameter of the window.
+  private static final int KAISER_RADIUS = 3;
+  private static final double KAISER_ALPHA = 4;
+
+  private final TextureData[] levels;
+
+  MipChain(TextureData[] levels) {
+    this.levels = levels;
+  }
+
+  /**
+   * A chain with only the full size image.
+   *
+   * @param base
+   *          The image.
+   */
+  public static MipChain of(TextureData base) {
+    return new MipChain(new TextureData[] { base });
+  }
+
+  /**
+   * Generate all levels of an image.
+   *
+   * @param base
+   *          The full size image.
+   * @param filter
+   *          The filter for each reduction.
+   */
+  public static MipChain generate(TextureData base, Filter filter) {
+    return generate(base, filter, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Generate the first levels of an image.
+   *
+   * @param base
+   *          The full size image.
+   * @param filter
+   *          The filter for each reduction.
+   * @param maxLevels
+   *          The maximum number of levels, including the full size image.
+   */
+  public static MipChain generate(TextureData base, Filter filter,
+      int maxLevels) {
+    int n = 1;
+    for (int size = Math.max(base.width, base.height); size > 1
+        && n < maxLevels; size /= 2)
+      n++;
+    TextureData[] levels = new TextureData[n];
+    levels[0] = base;
+    for (int i = 1; i != n; i++)
+      levels[i] = reduce(levels[i - 1], filter);
+    return new MipChain(levels);
+  }
+
+  /**
+   * @return The number of levels.
+   */
+  public int getLevelCount() {
+    return levels.length;
+  }
+
+  /**
+   * @param level
+   *          The level, 0 for the full size image.
+   * @return The pixels of a level.
+   */
+  public TextureData getLevel(int level) {
+    return levels[level];
+  }
+
+  /**
+   * @return The size of the pixel data of all levels in bytes.
+   */
+  public long getByteSize() {
+    long size = 0;
+    for (TextureData level : levels)
+      size += level.getByteSize();
+    return size;
+  }
+
+  /**
+   * Halve the size of an image, first along the rows and then along the
+   * columns.
+   */
+  static TextureData reduce(TextureData src, Filter filter) {
+    final int sw = src.width, sh = src.height;
+    final int dw = Math.max(1, sw / 2), dh = Math.max(1, sh / 2);
+    final int bpp = src.getPixelSize();
+    final Kernel kx = new Kernel(sw, dw, filter), ky = new Kernel(sh, dh, filter);
+    final ByteBuffer s = src.pixels;
+    final ByteBuffer d = BufferUtils.createByteBuffer(dw * dh * bpp);
+    final float[] rows = new float[sh * dw * bpp];
+
+    IntStream.range(0, sh).parallel().forEach(y -> {
+      for (int x = 0; x != dw; x++) {
+        int[] index = kx.index[x];
+        float[] weight = kx.weight[x];
+        for (int c = 0; c != bpp; c++) {
+          float sum = 0;
+          for (int k = 0; k != index.length; k++)
+            sum += (s.get((y * sw + index[k]) * bpp + c) & 0xff) * weight[k];
+          rows[(y * dw + x) * bpp + c] = sum;
+        }
+      }
+    });
+    // Distinct threads write distinct bytes, with absolute puts.
+    IntStream.range(0, dh).parallel().forEach(y -> {
+      int[] index = ky.index[y];
+      float[] weight = ky.weight[y];
+      for (int x = 0; x != dw; x++)
+        for (int c = 0; c != bpp; c++) {
+          float sum = 0;
+          for (int k = 0; k != index.length; k++)
+            sum += rows[(index[k] * dw + x) * bpp + c] * weight[k];
+          int v = Math.round(sum);
+          d.put((y * dw + x) * bpp + c, (byte) Math.max(0, Math.min(255, v)));
+        }
+    });
+    return src.withPixels(d, dw, dh);
+  }
+
+  /**
+   * The source pixels and their weights for each pixel of the smaller level,
+   * along one axis. Pixels beyond the edge are clamped to it.
+   */
+  private static final class Kernel {
+    final int[][] index;
+    final float[][] weight;
+
+    Kernel(int sn, int dn, Filter filter) {
+      index = new int[dn][];
+      weight = new float[dn][];
+      double scale = (double) sn / dn;
+      for (int i = 0; i != dn; i++) {
+        // The footprint of pixel i in source pixels.
+        double lo, hi;
+        if (filter == Filter.BOX) {
+          lo = i * scale;
+          hi = (i + 1) * scale;
+        } else {
+          double center = (i + 0.5) * scale;
+          lo = center - KAISER_RADIUS * scale;
+          hi = center + KAISER_RADIUS * scale;
+        }
+        int first = (int) Math.floor(lo), last = (int) Math.ceil(hi) - 1;
+        int[] idx = new int[last - first + 1];
+        float[] w = new float[idx.length];
+        double sum = 0;
+        for (int j = first; j <= last; j++) {
+          double v;
+          if (filter == Filter.BOX)
+            v = Math.min(hi, j + 1) - Math.max(lo, j);
+          else
+            v = kaiser(((j + 0.5) - (i + 0.5) * scale) / scale);
+          idx[j - first] = Math.max(0, Math.min(sn - 1, j));
+          w[j - first] = (float) v;
+          sum += v;
+        }
+        for (int k = 0; k != w.length; k++)
+          w[k] /= sum;
+        index[i] = idx;
+        weight[i] = w;
+      }
+    }
+
+    // The Kaiser windowed sinc at a distance in pixels of the smaller level.
+    private static double kaiser(double t) {
+      double x = t / KAISER_RADIUS;
+      if (Math.abs(x) >= 1)
+        return 0;
+      double sinc = t == 0 ? 1 : Math.sin(Math.PI * t) / (Math.PI * t);
+      return sinc * bessel(KAISER_ALPHA * Math.sqrt(1 - x * x))
+          / bessel(KAISER_ALPHA);
+    }
+
+    // The modified Bessel function of the first kind of order 0.
+    private static double bessel(double x) {
+      double sum = 1, term = 1;
+      for (int k = 1; k != 32; k++) {
+        term *= (x / (2 * k)) * (x / (2 * k));
+        sum += term;
+      }
+      return sum;
+    }
+  }
+}
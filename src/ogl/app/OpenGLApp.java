@@ -161,6 +161,7 @@ public final class OpenGLApp {
 			});
 
 			time.reset();
+			long nextReport = System.nanoTime();
 			// Run the rendering loop until the user has attempted to close
 			// the window or has pressed the ESCAPE key.
 			while ( glfwWindowShouldClose(window) == GL_FALSE ) {
@@ -170,6 +171,13 @@ public final class OpenGLApp {
 				application.display(width, height);
 
 				glfwSwapBuffers(window); // swap the color buffers
+				GLState.endFrame();
+				// show the GL calls of the last frame once per second
+				if (System.nanoTime() >= nextReport) {
+					nextReport = System.nanoTime() + 1000000000L;
+					glfwSetWindowTitle(window, title + " | GL calls: " + GLState.getIssuedCalls()
+							+ " issued, " + GLState.getSkippedCalls() + " skipped");
+				}
 				// Poll for window events. The key callback above will only be
 				// invoked during this call.
 				glfwPollEvents();
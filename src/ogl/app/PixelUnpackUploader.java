@@ -0,0 +1,122 @@
+package ogl.app;
+
+import static org.lwjgl.opengl.GL15.GL_STREAM_DRAW;
+import static org.lwjgl.opengl.GL15.GL_WRITE_ONLY;
+import static org.lwjgl.opengl.GL15.glBufferData;
+import static org.lwjgl.opengl.GL15.glGenBuffers;
+import static org.lwjgl.opengl.GL15.glMapBuffer;
+import static org.lwjgl.opengl.GL15.glUnmapBuffer;
+import static org.lwjgl.opengl.GL21.GL_PIXEL_UNPACK_BUFFER;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.opengl.GL;
+
+/**
+ * Uploads textures through pixel unpack buffers (PBOs). The pixels are copied
+ * into a mapped buffer and glTexImage2D returns at once, while the driver
+ * transfers them to the texture asynchronously. The buffers are used in turn,
+ * so the next texture can be written while the last one is still being
+ * transfered.
+ * <p>
+ * Needs OpenGL 2.1; older contexts upload directly.
+ */
+public final class PixelUnpackUploader {
+
+  private final int[] pbos;
+  private int next;
+
+  /**
+   * Create an uploader with two buffers.
+   */
+  public PixelUnpackUploader() {
+    this(2);
+  }
+
+  /**
+   * Create an uploader.
+   * 
+   * @param buffers
+   *          The number of buffers used in turn.
+   */
+  public PixelUnpackUploader(int buffers) {
+    if (!isSupported()) {
+      pbos = null;
+      return;
+    }
+    pbos = new int[buffers];
+    for (int i = 0; i != buffers; i++)
+      pbos[i] = glGenBuffers();
+  }
+
+  /**
+   * @return Whether the current context supports pixel unpack buffers.
+   */
+  public static boolean isSupported() {
+    return GL.getCapabilities().OpenGL21;
+  }
+
+  /**
+   * Create a texture and start the transfer of its pixels.
+   * 
+   * @param data
+   *          The pixels. They may be released once this method returns.
+   * @return The texture.
+   */
+  public Texture upload(TextureData data) {
+    return upload(MipChain.of(data));
+  }
+
+  /**
+   * Create a texture and start the transfer of its mipmap levels.
+   * 
+   * @param levels
+   *          The levels. They may be released once this method returns.
+   * @return The texture.
+   */
+  public Texture upload(MipChain levels) {
+    if (pbos == null)
+      return new Texture(levels);
+    Texture texture = new Texture();
+    upload(texture, levels);
+    return texture;
+  }
+
+  /**
+   * Replace the image of a texture, see {@link #upload(MipChain)}.
+   */
+  void upload(Texture texture, MipChain levels) {
+    if (pbos == null) {
+      texture.image(levels, false);
+      return;
+    }
+    int pbo = pbos[next];
+    next = (next + 1) % pbos.length;
+
+    // Orphan the buffer, so mapping it never waits for an earlier transfer.
+    long size = levels.getByteSize();
+    GLState.bindBuffer(GL_PIXEL_UNPACK_BUFFER, pbo);
+    glBufferData(GL_PIXEL_UNPACK_BUFFER, size, GL_STREAM_DRAW);
+    ByteBuffer mapped = glMapBuffer(GL_PIXEL_UNPACK_BUFFER, GL_WRITE_ONLY, size, null);
+    for (int i = 0; i != levels.getLevelCount(); i++) {
+      TextureData level = levels.getLevel(i);
+      ByteBuffer pixels = level.pixels.duplicate();
+      pixels.position(0).limit(level.getByteSize());
+      mapped.put(pixels);
+    }
+    glUnmapBuffer(GL_PIXEL_UNPACK_BUFFER);
+
+    // With a bound unpack buffer the pixel pointers are offsets into it.
+    texture.image(levels, true);
+    GLState.bindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+  }
+
+  /**
+   * Delete the buffers.
+   */
+  public void cleanUp() {
+    if (pbos != null)
+      for (int pbo : pbos)
+        GLState.deleteBuffer(pbo);
+  }
+}
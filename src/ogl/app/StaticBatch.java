@@ -0,0 +1,168 @@
+package ogl.app;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ogl.vecmath.Matrix;
+
+//Many small static meshes merged into one VAO, so that they are bound once and
+//drawn with one call. The meshes are transformed into world space when the
+//batch is built, so they all share the identity model matrix. Each mesh keeps
+//its own range of indices, which can still be drawn on its own or skipped,
+//e.g. after culling.
+//
+//A Batcher sorts meshes by shader program and builds one batch per program.
+public class StaticBatch {
+	private final int program;
+	private final VertexArrayObject vao;
+	// the first index and the index count of each mesh
+	private final int[] first, count;
+	private final IndexedMesh mesh;
+
+	private StaticBatch(int program, IndexedMesh mesh, int[] first, int[] count) throws Exception {
+		this.program = program;
+		this.mesh = mesh;
+		this.vao = new VertexArrayObject(mesh);
+		this.first = first;
+		this.count = count;
+	}
+
+	/**
+	 * @return the shader program all meshes of this batch are drawn with
+	 */
+	public int getProgram() {
+		return program;
+	}
+
+	/**
+	 * @return the merged world space mesh
+	 */
+	public IndexedMesh getMesh() {
+		return mesh;
+	}
+
+	/**
+	 * @return the number of meshes in this batch
+	 */
+	public int getMeshCount() {
+		return first.length;
+	}
+
+	/**
+	 * Draws all meshes with one call.
+	 */
+	public void draw() {
+		vao.bind();
+		vao.draw();
+		vao.unbind();
+	}
+
+	/**
+	 * Draws one mesh.
+	 * @param index the number of the mesh, in the order in which it was added
+	 */
+	public void draw(int index) {
+		vao.bind();
+		vao.draw(first[index], count[index]);
+		vao.unbind();
+	}
+
+	/**
+	 * Draws the visible meshes. Meshes that were added one after the other
+	 * and are both visible are drawn with one call.
+	 * @param visible for each mesh whether to draw it
+	 * @return the number of draw calls issued
+	 */
+	public int draw(boolean[] visible) {
+		int calls = 0;
+		vao.bind();
+		for (int i = 0; i != first.length;) {
+			if (!visible[i]) {
+				i++;
+				continue;
+			}
+			int start = first[i], end = first[i] + count[i];
+			for (i++; i != first.length && visible[i]; i++)
+				end = first[i] + count[i];
+			vao.draw(start, end - start);
+			calls++;
+		}
+		vao.unbind();
+		return calls;
+	}
+
+	/**
+	 * delete allocated buffers
+	 */
+	public void cleanUp() {
+		vao.cleanUp();
+	}
+
+	// Collects static meshes and merges them into one batch per shader program.
+	public static class Batcher {
+		private final VertexLayout layout;
+		private final Map<Integer, Pending> pending = new LinkedHashMap<Integer, Pending>();
+
+		// The meshes of one shader program.
+		private class Pending {
+			final IndexedMesh.Builder builder = new IndexedMesh.Builder(layout);
+			final List<int[]> ranges = new ArrayList<int[]>();
+			int indexCount;
+		}
+
+		/**
+		 * @param layout the attributes to store, must contain POSITION
+		 */
+		public Batcher(VertexLayout layout) {
+			if (!layout.contains(VertexLayout.Attribute.POSITION))
+				throw new IllegalArgumentException("Layout without positions");
+			this.layout = layout;
+		}
+
+		/**
+		 * Adds a mesh, transformed into world space.
+		 * @param program the shader program to draw the mesh with
+		 * @param vertices the mesh as a triangle list
+		 * @param model the modeling transformation, object space to world space
+		 * @return the index of the mesh in the batch of its program
+		 */
+		public int add(int program, Vertex[] vertices, Matrix model) {
+			if (vertices.length % 3 != 0)
+				throw new IllegalArgumentException("Vertex count is not a multiple of 3");
+			Pending p = pending.get(program);
+			if (p == null)
+				pending.put(program, p = new Pending());
+			// Normals transform with the inverse transpose, which also handles
+			// non-uniform scaling.
+			Matrix normalMatrix = layout.contains(VertexLayout.Attribute.NORMAL) ? model
+					.invertFull().transpose() : null;
+			for (Vertex v : vertices)
+				p.builder.add(new Vertex(model.transformPoint(v.position), v.color,
+						v.normal == null || normalMatrix == null ? v.normal : normalMatrix
+								.transformDirection(v.normal).normalize(), v.u, v.v));
+			p.ranges.add(new int[] { p.indexCount, vertices.length });
+			p.indexCount += vertices.length;
+			return p.ranges.size() - 1;
+		}
+
+		/**
+		 * Uploads one VAO per shader program.
+		 * @return the batches, in the order in which their programs were first added
+		 */
+		public List<StaticBatch> build() throws Exception {
+			List<StaticBatch> batches = new ArrayList<StaticBatch>();
+			for (Map.Entry<Integer, Pending> e : pending.entrySet()) {
+				Pending p = e.getValue();
+				int[] first = new int[p.ranges.size()], count = new int[p.ranges.size()];
+				for (int i = 0; i != first.length; i++) {
+					first[i] = p.ranges.get(i)[0];
+					count[i] = p.ranges.get(i)[1];
+				}
+				batches.add(new StaticBatch(e.getKey(), p.builder.build(), first, count));
+			}
+			return batches;
+		}
+	}
+}
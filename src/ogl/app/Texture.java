@@ -4,79 +4,82 @@
  *******************************************************************************/
 package ogl.app;
 
-import static org.lwjgl.opengl.GL11.glBindTexture;
-import static org.lwjgl.opengl.GL11.glEnable;
+import static org.lwjgl.opengl.GL11.GL_UNPACK_ALIGNMENT;
 import static org.lwjgl.opengl.GL11.glGenTextures;
+import static org.lwjgl.opengl.GL11.glPixelStorei;
 import static org.lwjgl.opengl.GL11.glTexImage2D;
 import static org.lwjgl.opengl.GL11.glTexParameteri;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
+import java.io.UncheckedIOException;
 
-import javax.imageio.ImageIO;
-
-import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
 
 /**
- * A thin wrapper for OpenGL texture images.
+ * A thin wrapper for OpenGL texture images. The pixels are not kept on the
+ * CPU once they are transfered to the GPU.
  * 
  */
 public final class Texture {
 
-  private ByteBuffer data;
   private int w;
   private int h;
-  private int obj;
+  private final int obj;
 
   /**
    * Create a new OpenGL texture. The image is loaded from file and transfered
-   * to the GPU.
+   * to the GPU together with its mipmaps.
    * 
-   * @param gl
-   *          The OpenGL context object.
    * @param t
    *          The file containing the image.
+   * @throws UncheckedIOException
+   *           If the file cannot be read.
    */
   public Texture(File t) {
-    // Read the image from file (PNG, JPEG, BMP, GIF)
-    BufferedImage bi = null;
-    try {
-      bi = ImageIO.read(t);
-    } catch (IOException e) {
-      e.printStackTrace();
-      System.exit(1);
-    }
+    this(MipChain.generate(read(t), MipChain.Filter.BOX));
+  }
 
-    // Get image size
-    w = bi.getWidth();
-    h = bi.getHeight();
-
-    // Buffer for texture data
-    data = BufferUtils.createByteBuffer(w * h * 4);
-
-    // Convert pixel format
-    for (int y = 0; y != h; y++) {
-      for (int x = 0; x != w; x++) {
-        int pp = bi.getRGB(x, y);
-        byte a = (byte) ((pp & 0xff000000) >> 24);
-        byte r = (byte) ((pp & 0x00ff0000) >> 16);
-        byte g = (byte) ((pp & 0x0000ff00) >> 8);
-        byte b = (byte) (pp & 0x000000ff);
-        data.put((y * w + x) * 4 + 0, r);
-        data.put((y * w + x) * 4 + 1, g);
-        data.put((y * w + x) * 4 + 2, b);
-        data.put((y * w + x) * 4 + 3, a);
-      }
-    }
+  /**
+   * Create a new OpenGL texture from an image, together with its mipmaps.
+   * 
+   * @param bi
+   *          The image.
+   */
+  public Texture(BufferedImage bi) {
+    this(MipChain.generate(TextureData.of(bi), MipChain.Filter.BOX));
+  }
 
+  /**
+   * Create a new OpenGL texture from pixel data, without mipmaps.
+   * 
+   * @param data
+   *          The pixels, see {@link TextureData}.
+   */
+  public Texture(TextureData data) {
+    this(MipChain.of(data));
+  }
+
+  /**
+   * Create a new OpenGL texture from mipmap levels. The texture is filtered
+   * trilinearly if there is more than one level.
+   * 
+   * @param levels
+   *          The levels, see {@link MipChain}.
+   */
+  public Texture(MipChain levels) {
+    this();
+    image(levels, false);
+  }
+
+  /**
+   * Create a new OpenGL texture object without an image.
+   */
+  Texture() {
     // Generate a new texture object id
-    IntBuffer objs = BufferUtils.createIntBuffer(1);
-    glGenTextures(objs);
-    obj = objs.get(0);
+    obj = glGenTextures();
 
     // Bind the texture object
     bind();
@@ -84,27 +87,84 @@ public final class Texture {
     // Set parameters
     glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
     glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
-
     glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER,
-      GL11.GL_NEAREST);
-    // GL2ES2.GL_LINEAR);
+      GL11.GL_LINEAR);
+  }
+
+  private static TextureData read(File t) {
+    // Read the image from file (PNG, JPEG, BMP, GIF)
+    try {
+      return TextureData.read(t);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Replace the texture image and its mipmaps.
+   * 
+   * @param levels
+   *          The levels, see {@link MipChain}.
+   * @param fromUnpackBuffer
+   *          Whether the levels were copied one after the other to the bound
+   *          pixel unpack buffer.
+   */
+  void image(MipChain levels, boolean fromUnpackBuffer) {
+    TextureData base = levels.getLevel(0);
+    w = base.width;
+    h = base.height;
+    bind();
+    int n = levels.getLevelCount();
     glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER,
-      GL11.GL_NEAREST);
-    // GL2ES2.GL_LINEAR_MIPMAP_LINEAR);
+      n > 1 ? GL11.GL_LINEAR_MIPMAP_LINEAR : GL11.GL_LINEAR);
+    glTexParameteri(GL11.GL_TEXTURE_2D, GL12.GL_TEXTURE_MAX_LEVEL, n - 1);
+    glPixelStorei(GL_UNPACK_ALIGNMENT, base.alignment);
+    long offset = 0;
+    for (int i = 0; i != n; i++) {
+      TextureData d = levels.getLevel(i);
+      if (fromUnpackBuffer)
+        glTexImage2D(GL11.GL_TEXTURE_2D, i, d.internalFormat, d.width,
+          d.height, 0, d.format, d.type, offset);
+      else
+        glTexImage2D(GL11.GL_TEXTURE_2D, i, d.internalFormat, d.width,
+          d.height, 0, d.format, d.type, d.pixels);
+      offset += d.getByteSize();
+    }
+    glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+  }
 
-    // Load the texture image
-    glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, w, h, 0, GL11.GL_RGBA,
-      GL11.GL_UNSIGNED_BYTE, data);
+  /**
+   * @return The width of the texture image in pixels.
+   */
+  public int getWidth() {
+    return w;
+  }
+
+  /**
+   * @return The height of the texture image in pixels.
+   */
+  public int getHeight() {
+    return h;
+  }
 
-    // gl.glGenerateMipmap(GL11.GL_TEXTURE_2D);
+  /**
+   * @return The OpenGL texture object id.
+   */
+  public int getId() {
+    return obj;
   }
 
   /**
    * Bind the OpenGL texture object to the currently active texture unit.
    */
   public void bind() {
-    glEnable(GL11.GL_TEXTURE_2D);
-    glBindTexture(GL11.GL_TEXTURE_2D, obj);
+    GLState.bindTexture(obj);
   }
 
-}
\ No newline at end of file
+  /**
+   * Delete the OpenGL texture object.
+   */
+  public void cleanUp() {
+    GLState.deleteTexture(obj);
+  }
+}
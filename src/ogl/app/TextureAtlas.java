@@ -0,0 +1,389 @@
+package ogl.app;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Many small images packed into a few large textures, the pages. Objects that
+ * use images on the same page can be drawn without binding another texture in
+ * between, and with {@link StaticBatch} even in one draw call.
+ * <p>
+ * Each image becomes a {@link Region} of a page. Its texture coordinates
+ * (0, 0) to (1, 1) are mapped into the region with {@link Region#remap}, so
+ * vertices written for a texture of their own work unchanged. Texture
+ * coordinates outside [0, 1] cannot repeat the image.
+ * <p>
+ * The images are packed with the skyline bottom-left heuristic, tallest
+ * first. Each region is surrounded by a border of copies of its edge pixels
+ * and starts at a multiple of {@link #PADDING}, so neither bilinear filtering
+ * nor the first mipmap levels mix in neighbouring images.
+ */
+public final class TextureAtlas {
+
+  /**
+   * The border around each region in pixels.
+   */
+  public static final int PADDING = 4;
+
+  // The mipmap levels that do not bleed with PADDING: 4, 2 and 1 pixels.
+  private static final int LEVELS = 3;
+
+  /**
+   * The place of an image on a page.
+   */
+  public static final class Region {
+    private final String name;
+    private final int width, height;
+    private int page, x, y;
+    private float u0, v0, u1, v1;
+    private TextureAtlas atlas;
+
+    private Region(String name, int width, int height) {
+      this.name = name;
+      this.width = width;
+      this.height = height;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return The index of the page.
+     */
+    public int getPage() {
+      return page;
+    }
+
+    /**
+     * @return The texture of the page.
+     */
+    public Texture getTexture() {
+      return atlas.pages[page];
+    }
+
+    /**
+     * Bind the texture of the page, see {@link Texture#bind()}.
+     */
+    public void bind() {
+      atlas.pages[page].bind();
+    }
+
+    public float getU0() {
+      return u0;
+    }
+
+    public float getV0() {
+      return v0;
+    }
+
+    public float getU1() {
+      return u1;
+    }
+
+    public float getV1() {
+      return v1;
+    }
+
+    /**
+     * @return A vertex with its texture coordinates mapped into this region.
+     */
+    public Vertex remap(Vertex v) {
+      return new Vertex(v.position, v.color, v.normal, u(v.u), v(v.v));
+    }
+
+    /**
+     * @return The vertices with their texture coordinates mapped into this
+     *         region.
+     */
+    public Vertex[] remap(Vertex[] vertices) {
+      Vertex[] result = new Vertex[vertices.length];
+      for (int i = 0; i != vertices.length; i++)
+        result[i] = remap(vertices[i]);
+      return result;
+    }
+
+    /**
+     * Map the texture coordinates of interleaved vertices into this region,
+     * in place, e.g. the data of an {@link IndexedMesh}.
+     *
+     * @param data
+     *          The vertices.
+     * @param layout
+     *          The layout of the vertices.
+     * @throws IllegalArgumentException
+     *           If the layout has no texture coordinates.
+     */
+    public void remap(float[] data, VertexLayout layout) {
+      int offset = layout.getOffset(VertexLayout.Attribute.UV);
+      if (offset < 0)
+        throw new IllegalArgumentException("No texture coordinates");
+      for (int i = offset; i < data.length; i += layout.getStride()) {
+        data[i] = u(data[i]);
+        data[i + 1] = v(data[i + 1]);
+      }
+    }
+
+    private float u(float u) {
+      return u0 + u * (u1 - u0);
+    }
+
+    private float v(float v) {
+      return v0 + v * (v1 - v0);
+    }
+  }
+
+  /**
+   * Collects images and packs them into an atlas.
+   */
+  public static final class Builder {
+    private final int pageSize;
+    private final List<Region> regions = new ArrayList<Region>();
+    private final List<BufferedImage> images = new ArrayList<BufferedImage>();
+    private final Map<String, Region> names = new HashMap<String, Region>();
+
+    /**
+     * Create a builder.
+     *
+     * @param pageSize
+     *          The width and height of the pages in pixels, e.g. 2048.
+     */
+    public Builder(int pageSize) {
+      if (pageSize <= 2 * PADDING)
+        throw new IllegalArgumentException("Page size too small: " + pageSize);
+      this.pageSize = pageSize;
+    }
+
+    /**
+     * Add an image. Its region is placed by {@link #build()}.
+     *
+     * @param name
+     *          The name of the region.
+     * @param image
+     *          The image.
+     * @return The region of the image.
+     * @throws IllegalArgumentException
+     *           If the name is taken or the image does not fit on a page.
+     */
+    public Region add(String name, BufferedImage image) {
+      if (names.containsKey(name))
+        throw new IllegalArgumentException("Duplicate region " + name);
+      if (size(image.getWidth()) > pageSize
+          || size(image.getHeight()) > pageSize)
+        throw new IllegalArgumentException("Image " + name
+            + " does not fit on a page");
+      Region r = new Region(name, image.getWidth(), image.getHeight());
+      regions.add(r);
+      images.add(image);
+      names.put(name, r);
+      return r;
+    }
+
+    /**
+     * Add an image file, named by its path.
+     *
+     * @throws IOException
+     *           If the file cannot be read.
+     */
+    public Region add(File file) throws IOException {
+      BufferedImage image = ImageIO.read(file);
+      if (image == null)
+        throw new IOException("Unsupported image format: " + file);
+      return add(file.getPath(), image);
+    }
+
+    /**
+     * Pack the images and create the textures of the pages. The builder
+     * should not be used afterwards.
+     */
+    public TextureAtlas build() {
+      Integer[] order = new Integer[regions.size()];
+      for (int i = 0; i != order.length; i++)
+        order[i] = i;
+      Arrays.sort(order, (a, b) -> {
+        Region ra = regions.get(a), rb = regions.get(b);
+        return ra.height != rb.height ? rb.height - ra.height : rb.width
+            - ra.width;
+      });
+
+      List<Skyline> skylines = new ArrayList<Skyline>();
+      for (int i : order) {
+        Region r = regions.get(i);
+        int w = size(r.width), h = size(r.height);
+        int page = 0;
+        int[] at = null;
+        for (; page != skylines.size(); page++)
+          if ((at = skylines.get(page).insert(w, h)) != null)
+            break;
+        if (at == null) {
+          skylines.add(new Skyline(pageSize));
+          at = skylines.get(page).insert(w, h);
+        }
+        r.page = page;
+        r.x = at[0] + PADDING;
+        r.y = at[1] + PADDING;
+      }
+
+      List<int[]> pixels = new ArrayList<int[]>();
+      List<BufferedImage> pageImages = new ArrayList<BufferedImage>();
+      for (int i = 0; i != skylines.size(); i++) {
+        BufferedImage bi = new BufferedImage(pageSize, pageSize,
+            BufferedImage.TYPE_INT_ARGB);
+        pageImages.add(bi);
+        pixels.add(((DataBufferInt) bi.getRaster().getDataBuffer()).getData());
+      }
+      for (int i = 0; i != regions.size(); i++)
+        copy(regions.get(i), images.get(i), pixels.get(regions.get(i).page));
+      images.clear();
+
+      Texture[] pages = new Texture[pageImages.size()];
+      for (int i = 0; i != pages.length; i++)
+        pages[i] = new Texture(MipChain.generate(
+            TextureData.of(pageImages.get(i)), MipChain.Filter.BOX, LEVELS));
+      return new TextureAtlas(pages, names);
+    }
+
+    // The space an image takes on a page, with the border on each side and
+    // rounded up to a multiple of PADDING.
+    private static int size(int n) {
+      return (n + 2 * PADDING + PADDING - 1) / PADDING * PADDING;
+    }
+
+    // Copy an image into its region and extend its edges into the border.
+    private void copy(Region r, BufferedImage image, int[] page) {
+      int[] row = new int[r.width];
+      for (int y = -PADDING; y != r.height + PADDING; y++) {
+        image.getRGB(0, Math.max(0, Math.min(r.height - 1, y)), r.width, 1,
+            row, 0, r.width);
+        int base = (r.y + y) * pageSize + r.x;
+        System.arraycopy(row, 0, page, base, r.width);
+        for (int p = 1; p <= PADDING; p++) {
+          page[base - p] = row[0];
+          page[base + r.width - 1 + p] = row[r.width - 1];
+        }
+      }
+      r.u0 = (float) r.x / pageSize;
+      r.v0 = (float) r.y / pageSize;
+      r.u1 = (float) (r.x + r.width) / pageSize;
+      r.v1 = (float) (r.y + r.height) / pageSize;
+    }
+  }
+
+  /**
+   * The top edge of the occupied area of a page, as segments from left to
+   * right. A rectangle is placed where its bottom is lowest, on the leftmost
+   * such place.
+   */
+  private static final class Skyline {
+    private final int size;
+    // the segments: x, y and width of each
+    private final List<int[]> segments = new ArrayList<int[]>();
+
+    Skyline(int size) {
+      this.size = size;
+      segments.add(new int[] { 0, 0, size });
+    }
+
+    /**
+     * Place a rectangle.
+     *
+     * @return x and y of the rectangle, or null if it does not fit.
+     */
+    int[] insert(int w, int h) {
+      int best = -1, bestY = 0, bestBottom = Integer.MAX_VALUE;
+      for (int i = 0; i != segments.size(); i++) {
+        int x = segments.get(i)[0];
+        if (x + w > size)
+          break;
+        // The rectangle rests on the highest segment it spans.
+        int y = 0;
+        for (int j = i, right = x + w; j != segments.size()
+            && segments.get(j)[0] < right; j++)
+          y = Math.max(y, segments.get(j)[1]);
+        if (y + h <= size && y + h < bestBottom) {
+          best = i;
+          bestY = y;
+          bestBottom = y + h;
+        }
+      }
+      if (best < 0)
+        return null;
+
+      int x = segments.get(best)[0];
+      segments.add(best, new int[] { x, bestY + h, w });
+      // Cut the segments below the rectangle.
+      for (int i = best + 1; i < segments.size();) {
+        int[] s = segments.get(i);
+        int overlap = x + w - s[0];
+        if (overlap <= 0)
+          break;
+        if (overlap < s[2]) {
+          s[0] += overlap;
+          s[2] -= overlap;
+          break;
+        }
+        segments.remove(i);
+      }
+      // Merge neighbours of the same height.
+      for (int i = 0; i + 1 < segments.size();) {
+        int[] s = segments.get(i), t = segments.get(i + 1);
+        if (s[1] == t[1]) {
+          s[2] += t[2];
+          segments.remove(i + 1);
+        } else {
+          i++;
+        }
+      }
+      return new int[] { x, bestY };
+    }
+  }
+
+  private final Texture[] pages;
+  private final Map<String, Region> regions;
+
+  private TextureAtlas(Texture[] pages, Map<String, Region> regions) {
+    this.pages = pages;
+    this.regions = Collections.unmodifiableMap(regions);
+    for (Region r : regions.values())
+      r.atlas = this;
+  }
+
+  /**
+   * @return The region of an image, or null if there is none of that name.
+   */
+  public Region getRegion(String name) {
+    return regions.get(name);
+  }
+
+  /**
+   * @return The number of pages.
+   */
+  public int getPageCount() {
+    return pages.length;
+  }
+
+  /**
+   * @return The texture of a page.
+   */
+  public Texture getPage(int page) {
+    return pages[page];
+  }
+
+  /**
+   * Delete the textures of all pages.
+   */
+  public void cleanUp() {
+    for (Texture page : pages)
+      page.cleanUp();
+  }
+}
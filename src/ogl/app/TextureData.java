@@ -0,0 +1,195 @@
+package ogl.app;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import javax.imageio.ImageIO;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+
+/**
+ * The pixels of a texture image in a direct buffer, together with the OpenGL
+ * formats that describe them, ready for glTexImage2D.
+ * <p>
+ * The common image types are copied from the backing array of their raster in
+ * one bulk operation and uploaded in their own component order (BGRA, BGR or
+ * ABGR), which OpenGL swizzles while transferring. All other types are
+ * converted to packed ARGB one row at a time. The first row is the top row of
+ * the image, so texture coordinate t = 0 addresses the top of the image.
+ */
+public final class TextureData {
+
+  final ByteBuffer pixels;
+  final int width;
+  final int height;
+  final int internalFormat;
+  final int format;
+  final int type;
+  final int alignment;
+
+  TextureData(ByteBuffer pixels, int width, int height,
+      int internalFormat, int format, int type, int alignment) {
+    this.pixels = pixels;
+    this.width = width;
+    this.height = height;
+    this.internalFormat = internalFormat;
+    this.format = format;
+    this.type = type;
+    this.alignment = alignment;
+  }
+
+  /**
+   * Read an image file (PNG, JPEG, BMP, GIF).
+   *
+   * @param file
+   *          The file containing the image.
+   * @throws IOException
+   *           If the file cannot be read or is not an image.
+   */
+  public static TextureData read(File file) throws IOException {
+    BufferedImage bi = ImageIO.read(file);
+    if (bi == null)
+      throw new IOException("Unsupported image format: " + file);
+    return of(bi);
+  }
+
+  /**
+   * Copy the pixels of an image.
+   *
+   * @param bi
+   *          The image.
+   */
+  public static TextureData of(BufferedImage bi) {
+    int w = bi.getWidth(), h = bi.getHeight();
+    WritableRaster raster = bi.getRaster();
+    boolean littleEndian = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    switch (bi.getType()) {
+    case BufferedImage.TYPE_INT_ARGB:
+    case BufferedImage.TYPE_INT_RGB:
+    case BufferedImage.TYPE_INT_BGR:
+      if (isPacked(raster, w, 1)) {
+        // One int per pixel, read as a native int with the blue (or red)
+        // component in the lowest byte.
+        ByteBuffer pixels = BufferUtils.createByteBuffer(4 * w * h);
+        int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+        pixels.asIntBuffer().put(data, 0, w * h);
+        int internal = bi.getType() == BufferedImage.TYPE_INT_ARGB ? GL11.GL_RGBA8
+            : GL11.GL_RGB8;
+        int format = bi.getType() == BufferedImage.TYPE_INT_BGR ? GL11.GL_RGBA
+            : GL12.GL_BGRA;
+        return new TextureData(pixels, w, h, internal, format,
+            GL12.GL_UNSIGNED_INT_8_8_8_8_REV, 4);
+      }
+      break;
+    case BufferedImage.TYPE_3BYTE_BGR:
+      if (isPacked(raster, w, 3))
+        return new TextureData(copy(raster, w * h * 3), w, h, GL11.GL_RGB8,
+            GL12.GL_BGR, GL11.GL_UNSIGNED_BYTE, 1);
+      break;
+    case BufferedImage.TYPE_4BYTE_ABGR:
+      // The bytes A, B, G, R form a native int with R in the highest byte on
+      // little endian machines.
+      if (littleEndian && isPacked(raster, w, 4))
+        return new TextureData(copy(raster, w * h * 4), w, h, GL11.GL_RGBA8,
+            GL11.GL_RGBA, GL12.GL_UNSIGNED_INT_8_8_8_8, 4);
+      break;
+    }
+
+    // Any other layout: convert one row at a time.
+    ByteBuffer pixels = BufferUtils.createByteBuffer(4 * w * h);
+    IntBuffer ints = pixels.asIntBuffer();
+    int[] row = new int[w];
+    for (int y = 0; y != h; y++) {
+      bi.getRGB(0, y, w, 1, row, 0, w);
+      ints.put(row);
+    }
+    return new TextureData(pixels, w, h, bi.getColorModel().hasAlpha()
+        ? GL11.GL_RGBA8 : GL11.GL_RGB8, GL12.GL_BGRA,
+        GL12.GL_UNSIGNED_INT_8_8_8_8_REV, 4);
+  }
+
+  /**
+   * Whether the raster stores its pixels in one array, row after row without
+   * gaps, starting at index 0.
+   */
+  private static boolean isPacked(WritableRaster raster, int w, int elements) {
+    DataBuffer buffer = raster.getDataBuffer();
+    SampleModel sm = raster.getSampleModel();
+    if (buffer.getNumBanks() != 1 || buffer.getOffset() != 0
+        || raster.getSampleModelTranslateX() != 0
+        || raster.getSampleModelTranslateY() != 0)
+      return false;
+    if (sm instanceof SinglePixelPackedSampleModel)
+      return elements == 1
+          && ((SinglePixelPackedSampleModel) sm).getScanlineStride() == w
+          && buffer instanceof DataBufferInt;
+    if (sm instanceof ComponentSampleModel) {
+      ComponentSampleModel csm = (ComponentSampleModel) sm;
+      return csm.getPixelStride() == elements
+          && csm.getScanlineStride() == w * elements
+          && buffer instanceof DataBufferByte;
+    }
+    return false;
+  }
+
+  /**
+   * Copy the byte array of a packed raster.
+   */
+  private static ByteBuffer copy(WritableRaster raster, int bytes) {
+    byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+    ByteBuffer pixels = BufferUtils.createByteBuffer(bytes);
+    pixels.put(data, 0, bytes);
+    pixels.flip();
+    return pixels;
+  }
+
+  /**
+   * The same formats with other pixels, e.g. a mipmap level.
+   */
+  TextureData withPixels(ByteBuffer pixels, int width, int height) {
+    return new TextureData(pixels, width, height, internalFormat, format, type,
+        alignment);
+  }
+
+  /**
+   * @return The number of bytes per pixel.
+   */
+  int getPixelSize() {
+    return format == GL12.GL_BGR ? 3 : 4;
+  }
+
+  /**
+   * @return The width of the image in pixels.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * @return The height of the image in pixels.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * @return The size of the pixel data in bytes.
+   */
+  public int getByteSize() {
+    return width * height * getPixelSize();
+  }
+}
@@ -0,0 +1,208 @@
+package ogl.app;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads textures in the background. Images are read and decoded, and their
+ * mipmaps built or loaded from a {@link MipCache}, by a pool of worker
+ * threads; the render thread transfers the pixels to the GPU in
+ * {@link #update()}, at most a given number of bytes and a given time per
+ * frame, so loading many textures does not stall rendering.
+ * <p>
+ * {@link #load(File)} returns at once with a texture that shows a placeholder
+ * (one gray pixel) until its image arrives. The texture object stays the same,
+ * so it can be bound right away. An image that cannot be read is reported on
+ * System.err and replaced by a magenta placeholder.
+ * <p>
+ * All methods except the decoding itself run on the render thread.
+ */
+public final class TextureManager {
+
+  /**
+   * The default number of bytes transfered per frame.
+   */
+  public static final long DEFAULT_BYTES_PER_FRAME = 8 << 20;
+
+  /**
+   * The default time spent transfering per frame, in nanoseconds.
+   */
+  public static final long DEFAULT_NANOS_PER_FRAME = 2000000;
+
+  private static final MipChain LOADING = solid(0xff808080);
+  private static final MipChain MISSING = solid(0xffff00ff);
+
+  // A decoded image, or the error that prevented it.
+  private static final class Decoded {
+    final Texture texture;
+    final File file;
+    final MipChain data;
+    final Exception error;
+
+    Decoded(Texture texture, File file, MipChain data, Exception error) {
+      this.texture = texture;
+      this.file = file;
+      this.data = data;
+      this.error = error;
+    }
+  }
+
+  private final ExecutorService decoders;
+  private final Queue<Decoded> decoded = new ConcurrentLinkedQueue<Decoded>();
+  // decoded images that did not fit into the budget of an earlier frame
+  private final ArrayDeque<Decoded> waiting = new ArrayDeque<Decoded>();
+  private final Map<File, Texture> textures = new HashMap<File, Texture>();
+  private final PixelUnpackUploader uploader;
+  private final long bytesPerFrame;
+  private final long nanosPerFrame;
+  private final MipCache cache;
+  private int pending;
+  private boolean closed;
+
+  /**
+   * Create a manager with one decoder thread less than there are processors,
+   * and the default budgets.
+   */
+  public TextureManager() {
+    this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+      DEFAULT_BYTES_PER_FRAME, DEFAULT_NANOS_PER_FRAME, null);
+  }
+
+  /**
+   * Create a manager.
+   *
+   * @param threads
+   *          The number of decoder threads.
+   * @param bytesPerFrame
+   *          The number of bytes transfered per frame. An image larger than
+   *          this is transfered alone in one frame.
+   * @param nanosPerFrame
+   *          The time spent transfering per frame. The image that exceeds it
+   *          is finished.
+   * @param cache
+   *          The cache of the mipmap chains, or null to build them on every
+   *          load with {@link MipChain.Filter#BOX}.
+   */
+  public TextureManager(int threads, long bytesPerFrame, long nanosPerFrame,
+      MipCache cache) {
+    if (threads <= 0 || bytesPerFrame <= 0 || nanosPerFrame <= 0)
+      throw new IllegalArgumentException(
+        "Threads and budgets must be positive");
+    this.bytesPerFrame = bytesPerFrame;
+    this.nanosPerFrame = nanosPerFrame;
+    this.cache = cache;
+    decoders = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "texture-decoder-" + count.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    uploader = new PixelUnpackUploader();
+  }
+
+  /**
+   * Start loading a texture. A file that was loaded before returns the same
+   * texture.
+   *
+   * @param file
+   *          The file containing the image (PNG, JPEG, BMP, GIF).
+   * @return The texture, showing a placeholder until the image arrives.
+   */
+  public Texture load(final File file) {
+    Texture texture = textures.get(file);
+    if (texture != null)
+      return texture;
+    final Texture t = new Texture(LOADING);
+    textures.put(file, t);
+    pending++;
+    decoders.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          MipChain levels = cache != null ? cache.load(file) : MipChain
+            .generate(TextureData.read(file), MipChain.Filter.BOX);
+          decoded.add(new Decoded(t, file, levels, null));
+        } catch (IOException | RuntimeException e) {
+          // ImageIO also throws unchecked exceptions for corrupt files.
+          decoded.add(new Decoded(t, file, null, e));
+        }
+      }
+    });
+    return t;
+  }
+
+  /**
+   * Transfer decoded images to their textures, within the budgets. Call once
+   * per frame.
+   *
+   * @return The number of textures completed.
+   */
+  public int update() {
+    if (closed)
+      return 0;
+    long start = System.nanoTime();
+    long bytes = 0;
+    int completed = 0;
+    for (Decoded d; (d = waiting.poll()) != null || (d = decoded.poll()) != null;) {
+      long size = d.data != null ? d.data.getByteSize() : 0;
+      if (completed > 0
+          && (bytes + size > bytesPerFrame || System.nanoTime() - start >= nanosPerFrame)) {
+        // Keep the order: this one goes first next frame.
+        waiting.addFirst(d);
+        break;
+      }
+      if (d.data != null) {
+        uploader.upload(d.texture, d.data);
+      } else {
+        System.err.println("Cannot load texture " + d.file + ": "
+          + d.error.getMessage());
+        d.texture.image(MISSING, false);
+      }
+      bytes += size;
+      completed++;
+      pending--;
+    }
+    return completed;
+  }
+
+  /**
+   * @return The number of textures still showing the loading placeholder.
+   */
+  public int getPendingCount() {
+    return pending;
+  }
+
+  /**
+   * Stop decoding and delete all textures loaded by this manager.
+   */
+  public void cleanUp() {
+    closed = true;
+    decoders.shutdownNow();
+    decoded.clear();
+    waiting.clear();
+    for (Texture t : textures.values())
+      t.cleanUp();
+    textures.clear();
+    uploader.cleanUp();
+  }
+
+  private static MipChain solid(int argb) {
+    BufferedImage bi = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    bi.setRGB(0, 0, argb);
+    return MipChain.of(TextureData.of(bi));
+  }
+}
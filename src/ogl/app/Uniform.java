@@ -8,12 +8,18 @@ import static org.lwjgl.opengl.GL20.glGetUniformLocation;
 
 /**
  * Encapsulate the transfer of (compound) float values from the OpenGL
- * application to an GLSL shader uniform variable.
+ * application to an GLSL shader uniform variable. Subclasses keep a copy of the
+ * value last transferred and skip the transfer if a new value is equal to it.
  */
 public abstract class Uniform {
 
   protected final int location;
 
+  /**
+   * Whether the copy of the value last transferred is valid.
+   */
+  protected boolean known;
+
   /**
    * Create a new named uniform binding for the specified shader program.
    * 
@@ -25,4 +31,13 @@ public abstract class Uniform {
   public Uniform(int program, String name) {
     location = glGetUniformLocation(program, name);
   }
+
+  /**
+   * Forget the value last transferred, so that the next value is transferred
+   * in any case. Needed if the program was relinked or the variable was set
+   * by other means.
+   */
+  public void invalidate() {
+    known = false;
+  }
 }
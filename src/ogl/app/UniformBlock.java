@@ -0,0 +1,179 @@
+package ogl.app;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.glBindBufferBase;
+import static org.lwjgl.opengl.GL31.*;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import ogl.vecmath.Color;
+import ogl.vecmath.Matrix;
+import ogl.vecmath.Vector;
+
+import org.lwjgl.BufferUtils;
+
+//A uniform buffer object (UBO) that backs a named uniform block, needs OpenGL
+//3.1. The members are written into a client side copy, and upload() transfers
+//the changed bytes in one call, however many members changed. The block is
+//attached to a binding point, so every program that declares the same block
+//and is attached to the same point shares its values.
+//
+//Members are addressed by their byte offset, which the driver reports for any
+//block layout; look them up once with getOffset. Like the Uniform classes, a
+//set that does not change a member does not mark anything for upload.
+public class UniformBlock {
+	private final int binding;
+	private final int ubo;
+	private final int size;
+	private final ByteBuffer data;
+	private final FloatBuffer scratch = BufferUtils.createFloatBuffer(16);
+	private final int program;
+	// the changed bytes [dirtyStart, dirtyEnd)
+	private int dirtyStart, dirtyEnd;
+
+	/**
+	 * Creates the buffer for a uniform block of a linked program and attaches
+	 * the block to a binding point.
+	 * @param program the linked shader program declaring the block
+	 * @param blockName the name of the block as seen in the shader program
+	 * @param binding the binding point
+	 * @throws IllegalArgumentException if the program has no such active block
+	 */
+	public UniformBlock(int program, String blockName, int binding) {
+		this.program = program;
+		this.binding = binding;
+		int index = glGetUniformBlockIndex(program, blockName);
+		if (index == GL_INVALID_INDEX)
+			throw new IllegalArgumentException("No uniform block " + blockName);
+		size = glGetActiveUniformBlocki(program, index, GL_UNIFORM_BLOCK_DATA_SIZE);
+		glUniformBlockBinding(program, index, binding);
+
+		data = BufferUtils.createByteBuffer(size);
+		ubo = glGenBuffers();
+		GLState.bindBuffer(GL_UNIFORM_BUFFER, ubo);
+		glBufferData(GL_UNIFORM_BUFFER, data, GL_DYNAMIC_DRAW);
+		glBindBufferBase(GL_UNIFORM_BUFFER, binding, ubo);
+		dirtyStart = size;
+		dirtyEnd = 0;
+	}
+
+	/**
+	 * Attaches the block of another program to this buffer.
+	 * @throws IllegalArgumentException if the program has no such active block
+	 */
+	public void attach(int program, String blockName) {
+		int index = glGetUniformBlockIndex(program, blockName);
+		if (index == GL_INVALID_INDEX)
+			throw new IllegalArgumentException("No uniform block " + blockName);
+		glUniformBlockBinding(program, index, binding);
+	}
+
+	/**
+	 * @param member the name of the member as seen in the shader program, e.g.
+	 *        "viewMatrix" or "Block.viewMatrix" for a block with an instance name
+	 * @return the byte offset of the member in the block
+	 * @throws IllegalArgumentException if the program has no such active member
+	 */
+	public int getOffset(String member) {
+		int index = glGetUniformIndices(program, member);
+		if (index == GL_INVALID_INDEX)
+			throw new IllegalArgumentException("No uniform " + member);
+		return glGetActiveUniformsi(program, index, GL_UNIFORM_OFFSET);
+	}
+
+	/**
+	 * @return the size of the block in bytes
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Sets a mat4 member, stored column major.
+	 */
+	public void set(int offset, Matrix m) {
+		scratch.clear();
+		m.fillBuffer(scratch);
+		scratch.flip();
+		boolean same = true;
+		for (int i = 0; same && i != 16; i++)
+			same = same(offset + 4 * i, scratch.get(i));
+		if (same)
+			return;
+		for (int i = 0; i != 16; i++)
+			data.putFloat(offset + 4 * i, scratch.get(i));
+		dirty(offset, 64);
+	}
+
+	/**
+	 * Sets a vec3 member.
+	 */
+	public void set(int offset, Vector v) {
+		set(offset, v.x(), v.y(), v.z());
+	}
+
+	/**
+	 * Sets a vec3 member.
+	 */
+	public void set(int offset, Color c) {
+		set(offset, c.getR(), c.getG(), c.getB());
+	}
+
+	private void set(int offset, float x, float y, float z) {
+		if (same(offset, x) && same(offset + 4, y) && same(offset + 8, z))
+			return;
+		data.putFloat(offset, x).putFloat(offset + 4, y).putFloat(offset + 8, z);
+		dirty(offset, 12);
+	}
+
+	/**
+	 * Sets a float member.
+	 */
+	public void set(int offset, float f) {
+		if (same(offset, f))
+			return;
+		data.putFloat(offset, f);
+		dirty(offset, 4);
+	}
+
+	/**
+	 * Sets an int member.
+	 */
+	public void set(int offset, int i) {
+		if (data.getInt(offset) == i)
+			return;
+		data.putInt(offset, i);
+		dirty(offset, 4);
+	}
+
+	private boolean same(int offset, float f) {
+		return data.getInt(offset) == Float.floatToIntBits(f);
+	}
+
+	private void dirty(int offset, int length) {
+		dirtyStart = Math.min(dirtyStart, offset);
+		dirtyEnd = Math.max(dirtyEnd, offset + length);
+	}
+
+	/**
+	 * Transfers the changed members with one call, if any changed.
+	 */
+	public void upload() {
+		if (GLState.count(dirtyStart >= dirtyEnd))
+			return;
+		GLState.bindBuffer(GL_UNIFORM_BUFFER, ubo);
+		data.limit(dirtyEnd).position(dirtyStart);
+		glBufferSubData(GL_UNIFORM_BUFFER, dirtyStart, data);
+		data.clear();
+		dirtyStart = size;
+		dirtyEnd = 0;
+	}
+
+	/**
+	 * delete the buffer
+	 */
+	public void cleanUp() {
+		GLState.deleteBuffer(ubo);
+	}
+}
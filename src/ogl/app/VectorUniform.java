@@ -5,6 +5,7 @@
 package ogl.app;
 
 import static org.lwjgl.opengl.GL20.glUniform3f;
+
 import ogl.vecmath.Vector;
 
 /**
@@ -13,6 +14,8 @@ import ogl.vecmath.Vector;
  */
 public class VectorUniform extends Uniform {
 
+  private float x, y, z;
+
   /**
    * Create a new named uniform binding for the specified shader program.
    * 
@@ -32,6 +35,17 @@ public class VectorUniform extends Uniform {
    *          The new value for the uniform variable.
    */
   public void set(Vector v) {
-    glUniform3f(location, v.x(), v.y(), v.z());
+    float x = v.x(), y = v.y(), z = v.z();
+    if (GLState.count(known && same(this.x, x) && same(this.y, y) && same(this.z, z)))
+      return;
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    known = true;
+    glUniform3f(location, x, y, z);
+  }
+
+  private static boolean same(float a, float b) {
+    return Float.floatToIntBits(a) == Float.floatToIntBits(b);
   }
 }
@@ -7,9 +7,24 @@ import ogl.vecmath.Vector;
 public class Vertex {
 	public final Vector position;
 	public final Color color;
+	// The normal, or null if the vertex has none.
+	public final Vector normal;
+	// The texture coordinates.
+	public final float u, v;
 
 	public Vertex(Vector p, Color c) {
+		this(p, c, null, 0, 0);
+	}
+
+	public Vertex(Vector p, Color c, Vector n) {
+		this(p, c, n, 0, 0);
+	}
+
+	public Vertex(Vector p, Color c, Vector n, float u, float v) {
 		position = p;
 		color = c;
+		normal = n;
+		this.u = u;
+		this.v = v;
 	}
 }
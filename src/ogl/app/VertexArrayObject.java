@@ -1,99 +1,163 @@
 package ogl.app;
 
-import static ogl.vecmathimp.FactoryDefault.vecmath;
 import static org.lwjgl.opengl.GL11.*;
 import static org.lwjgl.opengl.GL15.*;
 import static org.lwjgl.opengl.GL20.*;
 
 import java.nio.FloatBuffer;
-import java.util.ArrayList;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
 
-//Auxiliary class to represent a Vertex Array Object (VAO)
+//Auxiliary class to represent a Vertex Array Object (VAO). All vertex
+//attributes are interleaved in a single Vertex Buffer Object (VBO), as
+//described by a VertexLayout.
 public class VertexArrayObject{
 	// The attribute indices for the vertex data.
 	public static int vertexAttribIdx = 0;
 	public static int colorAttribIdx = 1;
+	public static int normalAttribIdx = 2;
+	public static int uvAttribIdx = 3;
+	// The attribute indices of InstancedMesh: the model matrix takes four
+	// consecutive indices, one per column.
+	public static int instanceMatrixAttribIdx = 4;
+	public static int instanceColorAttribIdx = 8;
+	public static int instanceAttribIdx = 9;
 	
 	// the VAO id
 	private final int id;
 	// the number of stored vertices
 	private final int numberOfVertices;	
-	// the vertex buffer objects associated with this VAO
-	private ArrayList<VertexBufferObject> vbos = new ArrayList<VertexBufferObject>();
-	
-	// Auxiliary class to represent a Vertex Buffer Object (VBO)
-	private class VertexBufferObject{
-		private final int id;
-		private final int attributeIdx;
-		
-		public VertexBufferObject(int attributeIdx, FloatBuffer data) {
-			this.id  = glGenBuffers();
-			this.attributeIdx = attributeIdx;
-			
-			glBindBuffer(GL_ARRAY_BUFFER, id);
-			glBufferData(GL_ARRAY_BUFFER, data, GL_STATIC_DRAW);
-			glVertexAttribPointer(attributeIdx, vecmath.vectorSize(), GL_FLOAT, false, 0, 0);
-		}
-		
-		public void enable(){
-			glEnableVertexAttribArray(attributeIdx);
-		}
-		
-		public void cleanUp(){
-			glDeleteBuffers(id);
-		}
-	}
+	// the layout of the interleaved vertex data
+	private final VertexLayout layout;
+	// the vertex buffer object holding all attributes
+	private final int vbo;
+	// the index buffer object, or 0 if the vertices are drawn in order
+	private final int ibo;
+	// the number of indices, and GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+	private final int numberOfIndices;
+	private final int indexType;
 	
 	/**
 	 * Creates a vertex array object from the given array of vertices (representing triangles)
+	 * with positions and colors.
 	 * @param vertices the vertices to be inserted into the VAO
-	 * @return the created vertex array object's id 
 	 */
 	public VertexArrayObject(Vertex[] vertices) throws Exception{
+		this(vertices, VertexLayout.POSITION_COLOR);
+	}
+
+	/**
+	 * Creates a vertex array object from the given array of vertices (representing triangles)
+	 * @param vertices the vertices to be inserted into the VAO
+	 * @param layout the attributes to store and their order within a vertex
+	 * @throws IllegalArgumentException if a vertex lacks an attribute of the layout
+	 */
+	public VertexArrayObject(Vertex[] vertices, VertexLayout layout) throws Exception{
+		this(layout, interleave(vertices, layout), vertices.length, null);
+	}
+
+	/**
+	 * Creates a vertex array object from an indexed mesh, drawn with glDrawElements. The
+	 * indices are stored as unsigned shorts if the mesh has at most 65536 vertices.
+	 * @param mesh the mesh to be inserted into the VAO
+	 */
+	public VertexArrayObject(IndexedMesh mesh) throws Exception{
+		this(mesh.getLayout(), vertexData(mesh), mesh.getVertexCount(), mesh);
+	}
+
+	private VertexArrayObject(VertexLayout layout, FloatBuffer data, int numberOfVertices,
+			IndexedMesh mesh) {
+		this.layout = layout;
+		// store the number of vertices
+		this.numberOfVertices = numberOfVertices;
+
 		// create the VAO id
 		if (OpenGLApp.getGLMajor() >= 3)	
 			id = GL30.glGenVertexArrays();
 		else 
 			id = -1;
-		
-		// store the number of vertices
-		numberOfVertices = vertices.length;
-
-		// Compile vertex data into a Java Buffer data structures that can be
-		// passed to the OpenGL API efficiently.
-		// create buffers
-		FloatBuffer positionData = BufferUtils.createFloatBuffer(numberOfVertices * vecmath.vectorSize());
-		FloatBuffer colorData = BufferUtils.createFloatBuffer(numberOfVertices * vecmath.colorSize());
-
-		// fill buffers
-		for (Vertex v : vertices) {
-			positionData.put(v.position.asArray());
-			colorData.put(v.color.asArray());
-		}
-
-		// rewind buffers
-		positionData.rewind();
-		colorData.rewind();
 
 		// activate vertex array object
 		if (OpenGLApp.getGLMajor() >= 3)
-			GL30.glBindVertexArray(id);
+			GLState.bindVertexArray(id);
 
-		// register Vertex Buffer (VBO)
-		vbos.add(new VertexBufferObject(vertexAttribIdx, positionData));
+		// register the Vertex Buffer (VBO)
+		vbo = glGenBuffers();
+		GLState.bindBuffer(GL_ARRAY_BUFFER, vbo);
+		glBufferData(GL_ARRAY_BUFFER, data, GL_STATIC_DRAW);
+		setAttribPointers();
 
-		// register Color Buffer
-		vbos.add(new VertexBufferObject(colorAttribIdx, colorData));
+		// register the Index Buffer, its binding is part of the VAO state
+		if (mesh == null) {
+			ibo = 0;
+			numberOfIndices = 0;
+			indexType = 0;
+			return;
+		}
+		int[] indices = mesh.getIndices();
+		numberOfIndices = indices.length;
+		ibo = glGenBuffers();
+		GLState.bindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+		if (mesh.hasShortIndices()) {
+			indexType = GL_UNSIGNED_SHORT;
+			ShortBuffer indexData = BufferUtils.createShortBuffer(numberOfIndices);
+			for (int i : indices)
+				indexData.put((short) i);
+			indexData.rewind();
+			glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexData, GL_STATIC_DRAW);
+		} else {
+			indexType = GL_UNSIGNED_INT;
+			IntBuffer indexData = BufferUtils.createIntBuffer(numberOfIndices);
+			indexData.put(indices).rewind();
+			glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexData, GL_STATIC_DRAW);
+		}
+	}
+
+	// Compiles vertex data into one interleaved Java Buffer that can be passed
+	// to the OpenGL API in a single call.
+	private static FloatBuffer interleave(Vertex[] vertices, VertexLayout layout) {
+		FloatBuffer data = BufferUtils.createFloatBuffer(vertices.length * layout.getStride());
+		for (Vertex v : vertices)
+			layout.put(v, data);
+		data.rewind();
+		return data;
+	}
+
+	private static FloatBuffer vertexData(IndexedMesh mesh) {
+		FloatBuffer data = BufferUtils.createFloatBuffer(mesh.getVertexData().length);
+		mesh.putVertexData(data);
+		data.rewind();
+		return data;
+	}
+
+	private void setAttribPointers() {
+		setAttribPointers(layout);
+	}
+
+	// Points every attribute of the layout into the bound VBO.
+	static void setAttribPointers(VertexLayout layout) {
+		int stride = layout.getStride() * Float.BYTES;
+		for (VertexLayout.Attribute a : layout.getAttributes())
+			glVertexAttribPointer(a.index(), a.size, GL_FLOAT, false, stride,
+					layout.getOffset(a) * Float.BYTES);
+	}
+
+	public VertexLayout getLayout() {
+		return layout;
 	}
 
 	public void unbind() {
-		// Restore state
-		glDisableVertexAttribArray(0);
+		// Restore state. The enabled attribute arrays are part of the VAO, they
+		// only need to be disabled without VAOs.
 		if (OpenGLApp.getGLMajor() >= 3)
-			GL30.glBindVertexArray(0);
+			GLState.bindVertexArray(0);
+		else
+			for (VertexLayout.Attribute a : layout.getAttributes())
+				GLState.disableVertexAttribArray(a.index());
 	}
 
 	/**
@@ -102,32 +166,75 @@ public class VertexArrayObject{
 	public void cleanUp(){
 		// unbind this VAO
 		unbind();
-		// delete all VBOs
-		for (VertexBufferObject vbo : vbos)
-			vbo.cleanUp();
+		// delete the VBO and the index buffer
+		GLState.deleteBuffer(vbo);
+		if (ibo != 0)
+			GLState.deleteBuffer(ibo);
 		
 		// delete this VAO
 		if (OpenGLApp.getGLMajor() >= 3)
-			GL30.glDeleteVertexArrays(id);
+			GLState.deleteVertexArray(id);
 	}
 
 	/**
 	 * activate this VAO
 	 */
 	public void bind(){
-		// activate this VAO
+		// activate this VAO; without VAOs the pointers are not stored, so set
+		// them again
 		if (OpenGLApp.getGLMajor() >= 3)
-			GL30.glBindVertexArray(id);
+			GLState.bindVertexArray(id);
+		else {
+			GLState.bindBuffer(GL_ARRAY_BUFFER, vbo);
+			setAttribPointers();
+			if (ibo != 0)
+				GLState.bindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+		}
 		
-		// enable all related VBOs
-		for (VertexBufferObject vbo : vbos)
-			vbo.enable();					
+		// enable all attributes of the layout
+		for (VertexLayout.Attribute a : layout.getAttributes())
+			GLState.enableVertexAttribArray(a.index());
 	}
 	
 	/**
 	 * draw this VAO
 	 */
 	public void draw(){
-		glDrawArrays(GL_TRIANGLES, 0, numberOfVertices);
+		if (ibo != 0)
+			glDrawElements(GL_TRIANGLES, numberOfIndices, indexType, 0);
+		else
+			glDrawArrays(GL_TRIANGLES, 0, numberOfVertices);
+	}
+
+	/**
+	 * draw several instances of this VAO, needs OpenGL 3.1
+	 * @param instances the number of instances
+	 */
+	public void drawInstanced(int instances){
+		if (ibo != 0)
+			GL31.glDrawElementsInstanced(GL_TRIANGLES, numberOfIndices, indexType, 0, instances);
+		else
+			GL31.glDrawArraysInstanced(GL_TRIANGLES, 0, numberOfVertices, instances);
+	}
+
+	/**
+	 * draw the first vertices or, if indexed, indices of this VAO
+	 * @param count the number of vertices or indices to draw
+	 */
+	public void draw(int count){
+		draw(0, count);
+	}
+
+	/**
+	 * draw a range of the vertices or, if indexed, indices of this VAO
+	 * @param first the first vertex or index to draw
+	 * @param count the number of vertices or indices to draw
+	 */
+	public void draw(int first, int count){
+		if (ibo != 0)
+			glDrawElements(GL_TRIANGLES, count, indexType,
+					(long) first * (indexType == GL_UNSIGNED_SHORT ? 2 : 4));
+		else
+			glDrawArrays(GL_TRIANGLES, first, count);
 	}
 }
@@ -0,0 +1,122 @@
+package ogl.app;
+
+import static ogl.vecmathimp.FactoryDefault.vecmath;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+//Describes how the attributes of a vertex are interleaved in one vertex
+//buffer. All attributes are floats; each vertex occupies getStride() floats
+//and an attribute starts getOffset(attribute) floats into its vertex.
+public class VertexLayout {
+	// The vertex attributes a layout can contain. Vectors and colors take as
+	// many floats as the factory writes with fillBuffer.
+	public enum Attribute {
+		POSITION(vecmath.vectorSize()), COLOR(vecmath.colorSize()), NORMAL(vecmath.vectorSize()),
+		UV(2),
+		// The number of the copy in a batch of replicated meshes, see
+		// InstancedMesh. Always 0 for a Vertex.
+		INSTANCE(1);
+
+		// The number of float components.
+		public final int size;
+
+		private Attribute(int size) {
+			this.size = size;
+		}
+
+		// The attribute index the shaders bind this attribute to.
+		public int index() {
+			switch (this) {
+			case POSITION: return VertexArrayObject.vertexAttribIdx;
+			case COLOR: return VertexArrayObject.colorAttribIdx;
+			case NORMAL: return VertexArrayObject.normalAttribIdx;
+			case UV: return VertexArrayObject.uvAttribIdx;
+			default: return VertexArrayObject.instanceAttribIdx;
+			}
+		}
+	}
+
+	// The layout of RotatingCube and the default of VertexArrayObject.
+	public static final VertexLayout POSITION_COLOR = new VertexLayout(Attribute.POSITION,
+			Attribute.COLOR);
+
+	private final Attribute[] attributes;
+	private final int[] offsets = new int[Attribute.values().length];
+	private final int stride;
+
+	/**
+	 * Creates a layout that stores the given attributes in this order.
+	 * @param attributes the attributes, each at most once
+	 */
+	public VertexLayout(Attribute... attributes) {
+		this.attributes = attributes.clone();
+		Arrays.fill(offsets, -1);
+		int offset = 0;
+		for (Attribute a : attributes) {
+			if (offsets[a.ordinal()] != -1)
+				throw new IllegalArgumentException("Duplicate attribute " + a);
+			offsets[a.ordinal()] = offset;
+			offset += a.size;
+		}
+		stride = offset;
+	}
+
+	public Attribute[] getAttributes() {
+		return attributes.clone();
+	}
+
+	public boolean contains(Attribute a) {
+		return offsets[a.ordinal()] != -1;
+	}
+
+	/**
+	 * @return the offset of an attribute within a vertex in floats, or -1 if the
+	 *         layout does not contain it
+	 */
+	public int getOffset(Attribute a) {
+		return offsets[a.ordinal()];
+	}
+
+	/**
+	 * @return the size of one vertex in floats
+	 */
+	public int getStride() {
+		return stride;
+	}
+
+	/**
+	 * Writes one vertex at the current position of a buffer and advances the
+	 * position by getStride().
+	 * @throws IllegalArgumentException if the layout contains normals but the vertex has none,
+	 *         or the vectors of the vertex do not have the size of the layout
+	 */
+	public void put(Vertex v, FloatBuffer buf) {
+		int start = buf.position();
+		for (Attribute a : attributes) {
+			switch (a) {
+			case POSITION:
+				v.position.fillBuffer(buf);
+				break;
+			case COLOR:
+				v.color.fillBuffer(buf);
+				break;
+			case NORMAL:
+				if (v.normal == null)
+					throw new IllegalArgumentException("Vertex has no normal");
+				v.normal.fillBuffer(buf);
+				break;
+			case UV:
+				buf.put(v.u).put(v.v);
+				break;
+			case INSTANCE:
+				buf.put(0);
+				break;
+			}
+		}
+		// A vertex from another factory would misalign all following vertices.
+		if (buf.position() - start != stride)
+			throw new IllegalArgumentException("Vertex takes " + (buf.position() - start)
+					+ " floats, the layout " + stride);
+	}
+}
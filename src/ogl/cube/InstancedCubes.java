@@ -0,0 +1,161 @@
+package ogl.cube;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.glfw.GLFW.*;
+import ogl.vecmath.Matrix;
+import ogl.app.*;
+//Select the factory we want to use.
+import static ogl.vecmathimp.FactoryDefault.vecmath;
+
+// Draws a block of rotating cubes with one InstancedMesh.
+public class InstancedCubes implements App {
+	static public void main(String[] args) {
+		new OpenGLApp("Instanced Cubes", new InstancedCubes()).start();
+	}
+
+	@Override
+	public void init() {
+		glClearColor(0.0f, 0.0f, 0.0f, 1.0f);
+		glEnable(GL_DEPTH_TEST);
+
+		int vs = glCreateShader(GL_VERTEX_SHADER);
+		glShaderSource(vs, getVsSource());
+		glCompileShader(vs);
+		Util.checkCompilation(vs);
+
+		int fs = glCreateShader(GL_FRAGMENT_SHADER);
+		glShaderSource(fs, getFsSource());
+		glCompileShader(fs);
+		Util.checkCompilation(fs);
+
+		program = glCreateProgram();
+		glAttachShader(program, vs);
+		glAttachShader(program, fs);
+
+		// Bind the vertex and the instance attributes *before* linking.
+		glBindAttribLocation(program, VertexArrayObject.vertexAttribIdx, "vertex");
+		glBindAttribLocation(program, VertexArrayObject.colorAttribIdx, "color");
+		InstancedMesh.bindAttribLocations(program);
+
+		glLinkProgram(program);
+		Util.checkLinkage(program);
+
+		viewMatrixUniform = new MatrixUniform(program, "viewMatrix");
+		projectionMatrixUniform = new MatrixUniform(program, "projectionMatrix");
+
+		try {
+			Vertex[] cube = new RotatingCube().getVertices();
+			cubes = new InstancedMesh(IndexedMesh.weld(cube, VertexLayout.POSITION_COLOR), N * N * N);
+			cubes.setProgram(program);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public void simulate(float elapsed, Input input) {
+		// Pressing key 'r' toggles the animation.
+		if (input.isKeyToggled(GLFW_KEY_R))
+			angle += 90 * elapsed;
+	}
+
+	@Override
+	public void display(int width, int height) {
+		glViewport(0, 0, width, height);
+		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+
+		GLState.useProgram(program);
+		float aspect = (float) width / (float) height;
+		projectionMatrixUniform.set(vecmath.perspectiveMatrix(60f, aspect, 0.1f, 100f));
+		viewMatrixUniform.set(vecmath.lookatMatrix(vecmath.vector(0f, 0f, 2f * N),
+				vecmath.vector(0f, 0f, 0f), vecmath.vector(0f, 1f, 0f)));
+
+		// One model matrix and one color per cube, each spinning at its own pace.
+		float half = (N - 1) / 2f;
+		for (int z = 0, i = 0; z != N; z++)
+			for (int y = 0; y != N; y++)
+				for (int x = 0; x != N; x++, i++) {
+					Matrix model = vecmath.translationMatrix(1.5f * (x - half), 1.5f * (y - half),
+							1.5f * (z - half)).mult(
+							vecmath.rotationMatrix(vecmath.vector(1, 1, 1), angle * (1 + i % 7) / 4));
+					cubes.set(i, model, vecmath.color((float) x / N + 0.2f, (float) y / N + 0.2f,
+							(float) z / N + 0.2f));
+				}
+
+		cubes.draw();
+	}
+
+	@Override
+	public void cleanUp() {
+		if (cubes != null)
+			cubes.cleanUp();
+	}
+
+	/************************
+	 * Variable definitions *
+	 ************************/
+
+	// The number of cubes along each axis.
+	private static final int N = 16;
+
+	private InstancedMesh cubes;
+
+	private int program;
+
+	private MatrixUniform viewMatrixUniform;
+	private MatrixUniform projectionMatrixUniform;
+
+	private float angle = 0;
+
+	// The GLSL version line, both shaders use the same one.
+	private String getGLSLVersionString() {
+		if (OpenGLApp.getGLMajor() < 3)
+			return "";
+		if (OpenGLApp.getGLMajor() > 3 || OpenGLApp.getGLMinor() >= 3)
+			return "#version 330\n";
+		return OpenGLApp.getGLMinor() == 0 ? "#version 130\n" : "#version 140\n";
+	}
+
+	private String[] getVsSource() {
+		String[] vertexIn;
+		if (OpenGLApp.getGLMajor() >= 3) {
+			vertexIn = new String[] { "in vec3 vertex;", "in vec3 color;", "out vec3 fcolor;" };
+		} else {
+			vertexIn = new String[] { "attribute vec3 vertex;", "attribute vec3 color;",
+					"varying vec3 fcolor;" };
+		}
+		String[] declarations = InstancedMesh.getVertexShaderDeclarations();
+		String[] main = {
+				"uniform mat4 viewMatrix;",
+				"uniform mat4 projectionMatrix;",
+
+				"void main() {",
+				"  fcolor = color * getInstanceColor();",
+				"  gl_Position = projectionMatrix * viewMatrix * getInstanceMatrix() * vec4(vertex, 1.0);",
+				"}" };
+
+		String[] source = new String[1 + vertexIn.length + declarations.length + main.length];
+		source[0] = getGLSLVersionString();
+		System.arraycopy(vertexIn, 0, source, 1, vertexIn.length);
+		System.arraycopy(declarations, 0, source, 1 + vertexIn.length, declarations.length);
+		System.arraycopy(main, 0, source, 1 + vertexIn.length + declarations.length, main.length);
+		return source;
+	}
+
+	private String[] getFsSource() {
+		if (OpenGLApp.getGLMajor() >= 3)
+			return new String[] {
+					getGLSLVersionString(),
+					"in vec3 fcolor;",
+					"out vec4 fragColor;",
+					"void main() {",
+					"  fragColor = vec4(fcolor, 1.0);",
+					"}" };
+		return new String[] {
+				"varying vec3 fcolor;",
+				"void main() {",
+				"  gl_FragColor = vec4(fcolor, 1.0);",
+				"}" };
+	}
+}
@@ -28,9 +28,10 @@ public class RotatingCube implements App {
 		// Enable depth testing.
 		glEnable(GL_DEPTH_TEST);
 
-		// create Vertex Array Object (VAO) from the cube's vertices
+		// create Vertex Array Object (VAO) from the cube's vertices, welded into
+		// the 8 unique corners plus an index buffer
 		try{
-			cube = new VertexArrayObject(cubeVertices);
+			cube = new VertexArrayObject(IndexedMesh.weld(cubeVertices, VertexLayout.POSITION_COLOR));
 		} catch (Exception e){
 			e.printStackTrace();
 		}
@@ -95,27 +96,12 @@ public class RotatingCube implements App {
 		// Clear all buffers.
 		glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
-		// Assemble the transformation matrix that will be applied to all
-		// vertices in the vertex shader.
-		float aspect = (float) width / (float) height;
-
-		// The perspective projection. Camera space to NDC.
-		Matrix projectionMatrix = vecmath
-				.perspectiveMatrix(60f, aspect, 0.1f, 100f);
-
-		// The inverse camera transformation. World space to camera space.
-		Matrix viewMatrix = vecmath.lookatMatrix(vecmath.vector(0f, 0f, 3f),
-				vecmath.vector(0f, 0f, 0f), vecmath.vector(0f, 1f, 0f));
-
-		// The modeling transformation. Object space to world space.
-		Matrix modelMatrix = vecmath.rotationMatrix(vecmath.vector(1, 1, 1), angle);
-
 		// Activate the shader program and set the transformation matrices to the
 		// uniform variables.
-		glUseProgram(program);
-		modelMatrixUniform.set(modelMatrix);
-		viewMatrixUniform.set(viewMatrix);
-		projectionMatrixUniform.set(projectionMatrix);
+		GLState.useProgram(program);
+		modelMatrixUniform.set(getModelMatrix());
+		viewMatrixUniform.set(getViewMatrix());
+		projectionMatrixUniform.set(getProjectionMatrix(width, height));
 
 		// bind the cube's VAO
 		cube.bind();
@@ -127,6 +113,33 @@ public class RotatingCube implements App {
 		cube.unbind();
 	}
 
+	// The perspective projection. Camera space to NDC.
+	Matrix getProjectionMatrix(int width, int height) {
+		float aspect = (float) width / (float) height;
+		return vecmath.perspectiveMatrix(60f, aspect, 0.1f, 100f);
+	}
+
+	// The inverse camera transformation. World space to camera space.
+	Matrix getViewMatrix() {
+		return vecmath.lookatMatrix(vecmath.vector(0f, 0f, 3f),
+				vecmath.vector(0f, 0f, 0f), vecmath.vector(0f, 1f, 0f));
+	}
+
+	// The modeling transformation. Object space to world space.
+	Matrix getModelMatrix() {
+		return vecmath.rotationMatrix(vecmath.vector(1, 1, 1), angle);
+	}
+
+	// The cube mesh as a triangle list.
+	Vertex[] getVertices() {
+		return cubeVertices;
+	}
+
+	// Set the rotation angle of the cube in degrees.
+	void setAngle(float angle) {
+		this.angle = angle;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see ogl.app.App#cleanUp()
@@ -0,0 +1,36 @@
+package ogl.cube;
+
+import static ogl.vecmathimp.FactoryDefault.vecmath;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import ogl.software.SoftwareRenderer;
+
+// Renders the rotating cube to a PNG file on the CPU. No OpenGL context and no
+// display are needed.
+//
+// Usage: SoftwareCube [file [width height [angle]]]
+public class SoftwareCube {
+	static public void main(String[] args) throws IOException {
+		String file = args.length > 0 ? args[0] : "cube.png";
+		int width = args.length > 2 ? Integer.parseInt(args[1]) : 640;
+		int height = args.length > 2 ? Integer.parseInt(args[2]) : 480;
+		float angle = args.length > 3 ? Float.parseFloat(args[3]) : 30;
+
+		// Use the same mesh and matrices as the OpenGL version.
+		RotatingCube cube = new RotatingCube();
+		cube.setAngle(angle);
+
+		SoftwareRenderer renderer = new SoftwareRenderer(width, height);
+		renderer.clear(vecmath.color(0, 0, 0));
+		renderer.draw(cube.getVertices(), cube.getModelMatrix(), cube.getViewMatrix(),
+				cube.getProjectionMatrix(width, height));
+
+		if (!ImageIO.write(renderer.getImage(), "png", new File(file)))
+			throw new IOException("No PNG writer available");
+		System.out.println(renderer.getStats());
+	}
+}
@@ -0,0 +1,62 @@
+package ogl.software;
+
+//Counters of a SoftwareRenderer, to see how much work the hierarchical depth
+//buffer saves in a scene. All counts refer to the drawing since the last
+//clear.
+public class RenderStats {
+	// Triangles that reached the rasterizer, after clipping and culling against
+	// the viewport.
+	long triangles;
+	// Triangles rejected as a whole because they are hidden in every tile they
+	// touch.
+	long trianglesRejected;
+	// Tiles visited by the remaining triangles, and those skipped because the
+	// triangle is hidden in them.
+	long tiles;
+	long tilesRejected;
+	// Fragments inside a triangle in the tiles that were not skipped, and
+	// those that passed the depth test and were shaded.
+	long fragments;
+	long fragmentsShaded;
+
+	public long getTriangles() {
+		return triangles;
+	}
+
+	public long getTrianglesRejected() {
+		return trianglesRejected;
+	}
+
+	public long getTiles() {
+		return tiles;
+	}
+
+	public long getTilesRejected() {
+		return tilesRejected;
+	}
+
+	public long getFragments() {
+		return fragments;
+	}
+
+	public long getFragmentsShaded() {
+		return fragmentsShaded;
+	}
+
+	// Fragments that were tested per pixel but failed the depth test.
+	public long getFragmentsRejected() {
+		return fragments - fragmentsShaded;
+	}
+
+	public void reset() {
+		triangles = trianglesRejected = tiles = tilesRejected = fragments = fragmentsShaded = 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("triangles %d (%d rejected early), tiles %d (%d rejected early), "
+				+ "fragments %d shaded, %d rejected by depth test",
+				triangles, trianglesRejected, tiles, tilesRejected, fragmentsShaded,
+				getFragmentsRejected());
+	}
+}
@@ -0,0 +1,457 @@
+package ogl.software;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+import ogl.app.Vertex;
+import ogl.vecmath.Color;
+import ogl.vecmath.Matrix;
+
+//Renders Vertex[] triangle meshes on the CPU, without an OpenGL context.
+//
+//This follows the fixed part of the OpenGL pipeline that RotatingCube relies
+//on: vertices are transformed to clip space by the same model, view and
+//projection matrices, clipped against the canonical view volume, divided by w
+//and mapped to the viewport. Triangles are filled with perspective correct
+//Gouraud shading of the vertex colors and a float depth buffer with the
+//GL_LESS test. As in OpenGL, the y axis of normalized device coordinates
+//points up, so the image is not upside down.
+public class SoftwareRenderer {
+	// The image size in pixels.
+	private final int width, height;
+
+	// The color buffer is the backing array of the image.
+	private final BufferedImage image;
+	private final int[] colorBuffer;
+	private final float[] depthBuffer;
+
+	// Vertex data after the transformation to clip space, 7 floats per vertex:
+	// x, y, z, w, r, g, b.
+	private static final int STRIDE = 7;
+	private float[] clip = new float[3 * STRIDE];
+
+	// Scratch polygons for clipping. Clipping a triangle against six planes
+	// yields at most nine vertices.
+	private final float[] polyA = new float[9 * STRIDE];
+	private final float[] polyB = new float[9 * STRIDE];
+
+	// The hierarchical depth buffer: the depth range of each tile of TILE x
+	// TILE pixels. tileMax is exact, tileMin is a lower bound.
+	private static final int TILE = 8;
+	// Subpixel resolution of the screen space vertices, 28.4 fixed point, and
+	// the offset of a pixel center.
+	private static final int ONE = 16, HALF = ONE / 2;
+	private final int tilesX;
+	private final float[] tileMin, tileMax;
+	private boolean hierarchicalZ = true;
+	// Whether the tile ranges are maintained for the current frame. Latched by
+	// clear, because the ranges are only valid if kept up to date since then.
+	private boolean hiZ;
+
+	// Counters for the last frame.
+	private final RenderStats stats = new RenderStats();
+
+	// Screen space vertices of the triangle being rasterized: x, y, depth, 1/w,
+	// r/w, g/w, b/w.
+	private final float[] sa = new float[STRIDE], sb = new float[STRIDE], sc = new float[STRIDE];
+
+	/**
+	 * Creates a renderer with its own color and depth buffer.
+	 * @param width the image width in pixels
+	 * @param height the image height in pixels
+	 */
+	public SoftwareRenderer(int width, int height) {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+		this.width = width;
+		this.height = height;
+		image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		colorBuffer = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		depthBuffer = new float[width * height];
+		tilesX = (width + TILE - 1) / TILE;
+		tileMin = new float[tilesX * ((height + TILE - 1) / TILE)];
+		tileMax = new float[tileMin.length];
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * The rendered image. It shares its pixels with the color buffer, so it is
+	 * updated by every draw call.
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/**
+	 * The color buffer as packed ARGB values, row by row from the top.
+	 */
+	public int[] getColorBuffer() {
+		return colorBuffer;
+	}
+
+	/**
+	 * The depth buffer, window space depth in [0, 1], row by row from the top.
+	 */
+	public float[] getDepthBuffer() {
+		return depthBuffer;
+	}
+
+	/**
+	 * Enables or disables the hierarchical depth buffer. It is enabled by
+	 * default; disabling it only makes sense to measure its effect. Takes
+	 * effect with the next call to clear.
+	 */
+	public void setHierarchicalZ(boolean enabled) {
+		hierarchicalZ = enabled;
+	}
+
+	/**
+	 * The counters of the drawing since the last call to clear.
+	 */
+	public RenderStats getStats() {
+		return stats;
+	}
+
+	/**
+	 * Clears the color buffer to a color and the depth buffer to 1. This is
+	 * glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT). The statistics are
+	 * reset, too.
+	 */
+	public void clear(Color c) {
+		Arrays.fill(colorBuffer, 0xff000000 | (c.toAwtColor() & 0xffffff));
+		Arrays.fill(depthBuffer, 1f);
+		Arrays.fill(tileMin, 1f);
+		Arrays.fill(tileMax, 1f);
+		hiZ = hierarchicalZ;
+		stats.reset();
+	}
+
+	/**
+	 * Draws a triangle list, like glDrawArrays(GL_TRIANGLES, ...) with the
+	 * RotatingCube shaders.
+	 * @param vertices every three vertices define one triangle
+	 * @param model object space to world space
+	 * @param view world space to camera space
+	 * @param projection camera space to clip space
+	 */
+	public void draw(Vertex[] vertices, Matrix model, Matrix view, Matrix projection) {
+		draw(vertices, projection.mult(view).mult(model));
+	}
+
+	/**
+	 * Draws a triangle list.
+	 * @param vertices every three vertices define one triangle
+	 * @param mvp object space to clip space
+	 */
+	public void draw(Vertex[] vertices, Matrix mvp) {
+		int n = vertices.length - vertices.length % 3;
+		if (clip.length < n * STRIDE)
+			clip = new float[n * STRIDE];
+
+		// Vertex stage: transform all vertices to clip space.
+		float[] m = mvp.asArray();
+		for (int i = 0; i != n; i++) {
+			Vertex v = vertices[i];
+			float x = v.position.x(), y = v.position.y(), z = v.position.z();
+			int o = i * STRIDE;
+			clip[o] = m[0] * x + m[4] * y + m[8] * z + m[12];
+			clip[o + 1] = m[1] * x + m[5] * y + m[9] * z + m[13];
+			clip[o + 2] = m[2] * x + m[6] * y + m[10] * z + m[14];
+			clip[o + 3] = m[3] * x + m[7] * y + m[11] * z + m[15];
+			clip[o + 4] = v.color.getR();
+			clip[o + 5] = v.color.getG();
+			clip[o + 6] = v.color.getB();
+		}
+
+		for (int t = 0; t != n; t += 3)
+			drawTriangle(t * STRIDE);
+	}
+
+	// Clips one triangle of the clip buffer and rasterizes the result.
+	private void drawTriangle(int offset) {
+		float[] c = clip;
+		int a = offset, b = offset + STRIDE, d = offset + 2 * STRIDE;
+
+		// Trivially accept triangles inside all planes, trivially reject
+		// triangles outside of one plane.
+		int outA = outcode(c, a), outB = outcode(c, b), outD = outcode(c, d);
+		if ((outA & outB & outD) != 0)
+			return;
+
+		float[] poly = polyA;
+		System.arraycopy(c, offset, poly, 0, 3 * STRIDE);
+		int count = 3;
+		if ((outA | outB | outD) != 0) {
+			float[] other = polyB;
+			for (int plane = 0; plane != 6 && count != 0; plane++) {
+				count = clipPolygon(poly, count, other, plane);
+				float[] tmp = poly;
+				poly = other;
+				other = tmp;
+			}
+			if (count < 3)
+				return;
+		}
+
+		// Project and draw the polygon as a fan.
+		project(poly, 0, sa);
+		project(poly, STRIDE, sc);
+		for (int i = 2; i != count; i++) {
+			float[] tmp = sb;
+			System.arraycopy(sc, 0, tmp, 0, STRIDE);
+			project(poly, i * STRIDE, sc);
+			rasterize(sa, tmp, sc);
+		}
+	}
+
+	// The planes of the canonical view volume, -w <= x, y, z <= w. Bit i is set
+	// if the vertex is outside of plane i.
+	private static int outcode(float[] v, int o) {
+		float x = v[o], y = v[o + 1], z = v[o + 2], w = v[o + 3];
+		int code = 0;
+		if (x < -w) code |= 1;
+		if (x > w) code |= 2;
+		if (y < -w) code |= 4;
+		if (y > w) code |= 8;
+		if (z < -w) code |= 16;
+		if (z > w) code |= 32;
+		return code;
+	}
+
+	// Signed distance of a vertex to a plane, positive inside.
+	private static float distance(float[] v, int o, int plane) {
+		float w = v[o + 3];
+		switch (plane) {
+		case 0: return w + v[o];
+		case 1: return w - v[o];
+		case 2: return w + v[o + 1];
+		case 3: return w - v[o + 1];
+		case 4: return w + v[o + 2];
+		default: return w - v[o + 2];
+		}
+	}
+
+	// Sutherland-Hodgman clipping of a polygon against one plane. All
+	// attributes are interpolated linearly in clip space.
+	private static int clipPolygon(float[] in, int count, float[] out, int plane) {
+		int n = 0;
+		int prev = (count - 1) * STRIDE;
+		float dPrev = distance(in, prev, plane);
+		for (int i = 0; i != count; i++) {
+			int cur = i * STRIDE;
+			float dCur = distance(in, cur, plane);
+			if ((dPrev >= 0) != (dCur >= 0)) {
+				float t = dPrev / (dPrev - dCur);
+				int o = n++ * STRIDE;
+				for (int k = 0; k != STRIDE; k++)
+					out[o + k] = in[prev + k] + t * (in[cur + k] - in[prev + k]);
+			}
+			if (dCur >= 0) {
+				System.arraycopy(in, cur, out, n++ * STRIDE, STRIDE);
+			}
+			prev = cur;
+			dPrev = dCur;
+		}
+		return n;
+	}
+
+	// Perspective divide and viewport transformation, like glViewport(0, 0,
+	// width, height) and glDepthRange(0, 1).
+	private void project(float[] v, int o, float[] s) {
+		float invW = 1 / v[o + 3];
+		s[0] = (v[o] * invW + 1) * 0.5f * width;
+		s[1] = (1 - v[o + 1] * invW) * 0.5f * height;
+		s[2] = (v[o + 2] * invW + 1) * 0.5f;
+		s[3] = invW;
+		s[4] = v[o + 4] * invW;
+		s[5] = v[o + 5] * invW;
+		s[6] = v[o + 6] * invW;
+	}
+
+	// Fills a screen space triangle. Pixels are sampled at their centers; pixels
+	// exactly on an edge belong to the triangle if it is a top or left edge.
+	// Like icg.rendering.TriangleRasterizer, the vertices are snapped to a 28.4
+	// fixed point grid and the edge functions are evaluated exactly in integers,
+	// so that the rule holds and triangles sharing an edge never cover a pixel
+	// twice.
+	//
+	// The bounding box is walked in the tiles of the hierarchical depth buffer.
+	// A tile is skipped if the triangle is nearer nowhere in it, or if it lies
+	// outside of one edge. In a tile where the triangle is nearer everywhere,
+	// the per-pixel depth compare is skipped.
+	private void rasterize(float[] a, float[] b, float[] c) {
+		// Clipping keeps the vertices within the viewport, so the products
+		// below cannot overflow.
+		long ax = fixed(a[0]), ay = fixed(a[1]);
+		long bx = fixed(b[0]), by = fixed(b[1]);
+		long cx = fixed(c[0]), cy = fixed(c[1]);
+		long area = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+		if (area == 0)
+			return;
+		if (area < 0) {
+			float[] t = b;
+			b = c;
+			c = t;
+			long u = bx;
+			bx = cx;
+			cx = u;
+			u = by;
+			by = cy;
+			cy = u;
+			area = -area;
+		}
+
+		// The pixels whose centers x + 0.5, y + 0.5 lie in the bounding box.
+		int minX = Math.max(ceilPixel(Math.min(ax, Math.min(bx, cx)) - HALF), 0);
+		int minY = Math.max(ceilPixel(Math.min(ay, Math.min(by, cy)) - HALF), 0);
+		int maxX = Math.min(floorPixel(Math.max(ax, Math.max(bx, cx)) - HALF), width - 1);
+		int maxY = Math.min(floorPixel(Math.max(ay, Math.max(by, cy)) - HALF), height - 1);
+		if (minX > maxX || minY > maxY)
+			return;
+		stats.triangles++;
+
+		// Depth is interpolated linearly, so the triangle lies between the
+		// depths of its vertices.
+		float zMin = Math.min(a[2], Math.min(b[2], c[2]));
+		float zMax = Math.max(a[2], Math.max(b[2], c[2]));
+		int tx0 = minX / TILE, tx1 = maxX / TILE, ty0 = minY / TILE, ty1 = maxY / TILE;
+
+		// Reject the whole triangle if it is hidden in all tiles it touches.
+		if (hiZ) {
+			boolean hidden = true;
+			for (int ty = ty0; ty <= ty1 && hidden; ty++)
+				for (int tx = tx0; tx <= tx1; tx++)
+					if (zMin < tileMax[ty * tilesX + tx]) {
+						hidden = false;
+						break;
+					}
+			if (hidden) {
+				stats.trianglesRejected++;
+				return;
+			}
+		}
+
+		// Edge functions of the edges opposite to a, b and c, and their steps
+		// per pixel. Divided by the area they are the barycentric weights of a,
+		// b and c.
+		long ax0 = (by - cy) * ONE, ay0 = (cx - bx) * ONE;
+		long ax1 = (cy - ay) * ONE, ay1 = (ax - cx) * ONE;
+		long ax2 = (ay - by) * ONE, ay2 = (bx - ax) * ONE;
+		// Top-left rule: make a value of 0 fail for the other edges.
+		long bias0 = isTopLeft(bx, by, cx, cy) ? 0 : -1;
+		long bias1 = isTopLeft(cx, cy, ax, ay) ? 0 : -1;
+		long bias2 = isTopLeft(ax, ay, bx, by) ? 0 : -1;
+
+		// Offsets from a tile origin to the tile corner with the largest value
+		// of each edge function.
+		int last = TILE - 1;
+		long hi0 = Math.max(ax0, 0) * last + Math.max(ay0, 0) * last;
+		long hi1 = Math.max(ax1, 0) * last + Math.max(ay1, 0) * last;
+		long hi2 = Math.max(ax2, 0) * last + Math.max(ay2, 0) * last;
+
+		float inv = 1f / area;
+		for (int ty = ty0; ty <= ty1; ty++) {
+			int y0 = Math.max(ty * TILE, minY), y1 = Math.min(ty * TILE + TILE - 1, maxY);
+			for (int tx = tx0; tx <= tx1; tx++) {
+				int x0 = Math.max(tx * TILE, minX), x1 = Math.min(tx * TILE + TILE - 1, maxX);
+				int tile = ty * tilesX + tx;
+				stats.tiles++;
+
+				if (hiZ && zMin >= tileMax[tile]) {
+					stats.tilesRejected++;
+					continue;
+				}
+
+				long px = (long) x0 * ONE + HALF, py = (long) y0 * ONE + HALF;
+				long w0Row = (cx - bx) * (py - by) - (cy - by) * (px - bx) + bias0;
+				long w1Row = (ax - cx) * (py - cy) - (ay - cy) * (px - cx) + bias1;
+				long w2Row = (bx - ax) * (py - ay) - (by - ay) * (px - ax) + bias2;
+				if (w0Row + hi0 < 0 || w1Row + hi1 < 0 || w2Row + hi2 < 0)
+					continue;
+
+				// The depth test passes everywhere if the triangle is in front of
+				// the nearest depth in the tile.
+				boolean visible = hiZ && zMax < tileMin[tile];
+				boolean written = false;
+				for (int y = y0; y <= y1; y++) {
+					long w0 = w0Row, w1 = w1Row, w2 = w2Row;
+					int index = y * width + x0;
+					for (int x = x0; x <= x1; x++, index++) {
+						if ((w0 | w1 | w2) >= 0) {
+							float l0 = (w0 - bias0) * inv, l1 = (w1 - bias1) * inv;
+							float l2 = (w2 - bias2) * inv;
+							float z = l0 * a[2] + l1 * b[2] + l2 * c[2];
+							stats.fragments++;
+							if (visible || z < depthBuffer[index]) {
+								depthBuffer[index] = z;
+								float q = 1 / (l0 * a[3] + l1 * b[3] + l2 * c[3]);
+								colorBuffer[index] = argb(
+										(l0 * a[4] + l1 * b[4] + l2 * c[4]) * q,
+										(l0 * a[5] + l1 * b[5] + l2 * c[5]) * q,
+										(l0 * a[6] + l1 * b[6] + l2 * c[6]) * q);
+								stats.fragmentsShaded++;
+								written = true;
+							}
+						}
+						w0 += ax0;
+						w1 += ax1;
+						w2 += ax2;
+					}
+					w0Row += ay0;
+					w1Row += ay1;
+					w2Row += ay2;
+				}
+				if (written && hiZ)
+					updateTile(tx, ty, zMin);
+			}
+		}
+	}
+
+	// Recomputes the depth range of a tile after the triangle with the nearest
+	// depth zMin was drawn into it.
+	private void updateTile(int tx, int ty, float zMin) {
+		int tile = ty * tilesX + tx;
+		int x0 = tx * TILE, x1 = Math.min(x0 + TILE, width);
+		int y0 = ty * TILE, y1 = Math.min(y0 + TILE, height);
+		float max = 0;
+		for (int y = y0; y != y1; y++)
+			for (int i = y * width + x0, end = y * width + x1; i != end; i++)
+				max = Math.max(max, depthBuffer[i]);
+		tileMax[tile] = max;
+		tileMin[tile] = Math.min(tileMin[tile], zMin);
+	}
+
+	// With y pointing down and counter clockwise orientation on screen, the top
+	// and left edges are those that go up, or right if horizontal.
+	private static boolean isTopLeft(long fromX, long fromY, long toX, long toY) {
+		return toY < fromY || (toY == fromY && toX > fromX);
+	}
+
+	private static long fixed(float f) {
+		return Math.round(f * ONE);
+	}
+
+	private static int ceilPixel(long v) {
+		return (int) -Math.floorDiv(-v, ONE);
+	}
+
+	private static int floorPixel(long v) {
+		return (int) Math.floorDiv(v, ONE);
+	}
+
+	private static int argb(float r, float g, float b) {
+		return 0xff000000 | channel(r) << 16 | channel(g) << 8 | channel(b);
+	}
+
+	private static int channel(float f) {
+		return f <= 0 ? 0 : f >= 1 ? 255 : (int) (f * 255 + 0.5f);
+	}
+}
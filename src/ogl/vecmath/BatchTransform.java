@@ -0,0 +1,73 @@
+package ogl.vecmath;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Loop kernels behind the batch transform methods of <code>Matrix</code>. The
+ * matrix is given as its 16 column-major values. The loops are kept free of
+ * calls and object access so that the JIT can unroll and vectorize them.
+ * <p>
+ * The array kernel is public so that the implementations of
+ * <code>ogl.vecmathimp.MatrixKernels</code> share it instead of keeping
+ * copies of the loop.
+ */
+public final class BatchTransform {
+
+  private BatchTransform() {
+  }
+
+  /**
+   * Transform <code>count</code> coordinate triples stored as a structure of
+   * arrays. The homogenous coordinate is <code>w</code>, which must be 0 or 1.
+   * Source and destination arrays may be the same.
+   */
+  public static void transform(float[] m, float w, float[] xs, float[] ys,
+      float[] zs, int offset, int count, float[] destXs, float[] destYs,
+      float[] destZs) {
+    final float m00 = m[0], m01 = m[1], m02 = m[2];
+    final float m10 = m[4], m11 = m[5], m12 = m[6];
+    final float m20 = m[8], m21 = m[9], m22 = m[10];
+    final float m30 = m[12] * w, m31 = m[13] * w, m32 = m[14] * w;
+
+    final int end = offset + count;
+    for (int i = offset; i < end; i++) {
+      float x = xs[i], y = ys[i], z = zs[i];
+      destXs[i] = m00 * x + m10 * y + m20 * z + m30;
+      destYs[i] = m01 * x + m11 * y + m21 * z + m31;
+      destZs[i] = m02 * x + m12 * y + m22 * z + m32;
+    }
+  }
+
+  /**
+   * Transform <code>count</code> tightly packed xyz triples starting at the
+   * current position of <code>src</code> into <code>dest</code>, starting at
+   * its current position. The buffer positions are not changed. Source and
+   * destination may be the same buffer.
+   */
+  static void transform(float[] m, float w, FloatBuffer src, FloatBuffer dest,
+      int count) {
+    final float m00 = m[0], m01 = m[1], m02 = m[2];
+    final float m10 = m[4], m11 = m[5], m12 = m[6];
+    final float m20 = m[8], m21 = m[9], m22 = m[10];
+    final float m30 = m[12] * w, m31 = m[13] * w, m32 = m[14] * w;
+
+    // Element-wise access to direct buffers is not vectorized, so move the
+    // data through a heap array in chunks with bulk get() and put().
+    FloatBuffer in = src.duplicate(), out = dest.duplicate();
+    float[] chunk = new float[3 * Math.min(count, CHUNK)];
+    for (int done = 0; done < count; done += CHUNK) {
+      int n = 3 * Math.min(count - done, CHUNK);
+      in.get(chunk, 0, n);
+      for (int i = 0; i < n; i += 3) {
+        float x = chunk[i], y = chunk[i + 1], z = chunk[i + 2];
+        chunk[i] = m00 * x + m10 * y + m20 * z + m30;
+        chunk[i + 1] = m01 * x + m11 * y + m21 * z + m31;
+        chunk[i + 2] = m02 * x + m12 * y + m22 * z + m32;
+      }
+      out.put(chunk, 0, n);
+    }
+  }
+
+  // Number of points per chunk in the buffer path.
+  private static final int CHUNK = 1024;
+}
@@ -86,6 +86,85 @@ public interface Matrix {
    */
   public abstract Vector transformNormal(Vector v);
 
+  /**
+   * Transform a batch of points by the current matrix. The points are stored
+   * as a structure of arrays, the homogenous coordinate is assumed to be 1.0.
+   * The destination arrays may be the same as the source arrays.
+   *
+   * @param xs, ys, zs
+   *          The point coordinates.
+   * @param offset
+   *          Index of the first point to transform.
+   * @param count
+   *          The number of points to transform.
+   * @param destXs, destYs, destZs
+   *          Receive the transformed coordinates at the same indices.
+   */
+  public default void transformPoints(float[] xs, float[] ys, float[] zs,
+      int offset, int count, float[] destXs, float[] destYs, float[] destZs) {
+    BatchTransform.transform(asArray(), 1, xs, ys, zs, offset, count, destXs,
+        destYs, destZs);
+  }
+
+  /**
+   * Transform a batch of points by the current matrix. The points are stored
+   * as tightly packed xyz triples, beginning at the current buffer positions.
+   * The positions of both buffers are left unchanged. The destination may be
+   * the source buffer.
+   *
+   * @param src
+   *          The points.
+   * @param dest
+   *          Receives the transformed points.
+   * @param count
+   *          The number of points to transform.
+   */
+  public default void transformPoints(FloatBuffer src, FloatBuffer dest,
+      int count) {
+    BatchTransform.transform(asArray(), 1, src, dest, count);
+  }
+
+  /**
+   * Transform a batch of directions by the current matrix. The homogenous
+   * coordinate is assumed to be 0.0. See
+   * {@link #transformPoints(float[], float[], float[], int, int, float[], float[], float[])}.
+   */
+  public default void transformDirections(float[] xs, float[] ys, float[] zs,
+      int offset, int count, float[] destXs, float[] destYs, float[] destZs) {
+    BatchTransform.transform(asArray(), 0, xs, ys, zs, offset, count, destXs,
+        destYs, destZs);
+  }
+
+  /**
+   * Transform a batch of directions by the current matrix. The homogenous
+   * coordinate is assumed to be 0.0. See
+   * {@link #transformPoints(FloatBuffer, FloatBuffer, int)}.
+   */
+  public default void transformDirections(FloatBuffer src, FloatBuffer dest,
+      int count) {
+    BatchTransform.transform(asArray(), 0, src, dest, count);
+  }
+
+  /**
+   * Transform a batch of normals by the current matrix. The same assumptions
+   * as for {@link #transformNormal(Vector)} apply. See
+   * {@link #transformPoints(float[], float[], float[], int, int, float[], float[], float[])}.
+   */
+  public default void transformNormals(float[] xs, float[] ys, float[] zs,
+      int offset, int count, float[] destXs, float[] destYs, float[] destZs) {
+    transformDirections(xs, ys, zs, offset, count, destXs, destYs, destZs);
+  }
+
+  /**
+   * Transform a batch of normals by the current matrix. The same assumptions
+   * as for {@link #transformNormal(Vector)} apply. See
+   * {@link #transformPoints(FloatBuffer, FloatBuffer, int)}.
+   */
+  public default void transformNormals(FloatBuffer src, FloatBuffer dest,
+      int count) {
+    transformDirections(src, dest, count);
+  }
+
   public abstract Matrix transpose();
 
   /**
@@ -0,0 +1,238 @@
+package ogl.vecmathimp;
+
+import ogl.vecmath.Color;
+import ogl.vecmath.Factory;
+import ogl.vecmath.Matrix;
+import ogl.vecmath.Vector;
+
+/**
+ * A <code>Factory</code> that produces the mutable vecmath types
+ * <code>MutableVector</code>, <code>MutableMatrix</code> and
+ * <code>MutableColor</code>. Code that only uses the <code>ogl.vecmath</code>
+ * interfaces works unchanged when it selects this factory instead of
+ * <code>FactoryDefault</code>:
+ *
+ * <pre>
+ * import static ogl.vecmathimp.FactoryMutable.vecmath;
+ * </pre>
+ *
+ * Code that wants to avoid allocation in its frame loop can additionally use
+ * the destination variants offered here and on the mutable types, together
+ * with temporaries from <code>TempPool</code>.
+ */
+public final class FactoryMutable implements Factory {
+
+  /**
+   * The shared factory instance.
+   */
+  public static final FactoryMutable vecmath = new FactoryMutable();
+
+  private FactoryMutable() {
+  }
+
+  @Override
+  public MutableVector vector(float nx, float ny, float nz) {
+    return new MutableVector(nx, ny, nz);
+  }
+
+  /**
+   * Returns a new vector on every call, since the result is mutable.
+   */
+  @Override
+  public MutableVector xAxis() {
+    return new MutableVector(1, 0, 0);
+  }
+
+  /**
+   * Returns a new vector on every call, since the result is mutable.
+   */
+  @Override
+  public MutableVector yAxis() {
+    return new MutableVector(0, 1, 0);
+  }
+
+  /**
+   * Returns a new vector on every call, since the result is mutable.
+   */
+  @Override
+  public MutableVector zAxis() {
+    return new MutableVector(0, 0, 1);
+  }
+
+  @Override
+  public int vectorSize() {
+    return 3;
+  }
+
+  @Override
+  public MutableMatrix identityMatrix() {
+    return new MutableMatrix();
+  }
+
+  @Override
+  public MutableMatrix matrix(float m00, float m01, float m02, float m03,
+      float m10, float m11, float m12, float m13, float m20, float m21,
+      float m22, float m23, float m30, float m31, float m32, float m33) {
+    return new MutableMatrix().set(m00, m01, m02, m03, m10, m11, m12, m13, m20,
+        m21, m22, m23, m30, m31, m32, m33);
+  }
+
+  @Override
+  public MutableMatrix matrix(float[] elements) {
+    return new MutableMatrix(elements);
+  }
+
+  @Override
+  public MutableMatrix matrix(Vector b0, Vector b1, Vector b2) {
+    return new MutableMatrix().setBase(b0, b1, b2);
+  }
+
+  @Override
+  public MutableMatrix translationMatrix(Vector t) {
+    return translationMatrix(t.x(), t.y(), t.z());
+  }
+
+  @Override
+  public MutableMatrix translationMatrix(float x, float y, float z) {
+    return new MutableMatrix().setTranslation(x, y, z);
+  }
+
+  /**
+   * Overwrite a matrix with a translation.
+   *
+   * @param t
+   *          The translation vector.
+   * @param dest
+   *          Receives the translation matrix.
+   * @return <code>dest</code>.
+   */
+  public MutableMatrix translationMatrix(Vector t, MutableMatrix dest) {
+    return dest.setTranslation(t.x(), t.y(), t.z());
+  }
+
+  @Override
+  public MutableMatrix rotationMatrix(Vector axis, float angle) {
+    return rotationMatrix(axis.x(), axis.y(), axis.z(), angle);
+  }
+
+  @Override
+  public MutableMatrix rotationMatrix(float ax, float ay, float az, float angle) {
+    return new MutableMatrix().setRotation(ax, ay, az, angle);
+  }
+
+  /**
+   * Overwrite a matrix with a rotation.
+   *
+   * @param axis
+   *          The rotation axis.
+   * @param angle
+   *          The angle of rotaion in degree.
+   * @param dest
+   *          Receives the rotation matrix.
+   * @return <code>dest</code>.
+   */
+  public MutableMatrix rotationMatrix(Vector axis, float angle,
+      MutableMatrix dest) {
+    return dest.setRotation(axis.x(), axis.y(), axis.z(), angle);
+  }
+
+  @Override
+  public MutableMatrix scaleMatrix(Vector s) {
+    return scaleMatrix(s.x(), s.y(), s.z());
+  }
+
+  @Override
+  public MutableMatrix scaleMatrix(float x, float y, float z) {
+    return new MutableMatrix().setScale(x, y, z);
+  }
+
+  @Override
+  public MutableMatrix lookatMatrix(Vector eye, Vector center, Vector up) {
+    return new MutableMatrix().setLookat(eye, center, up);
+  }
+
+  @Override
+  public MutableMatrix frustumMatrix(float left, float right, float bottom,
+      float top, float zNear, float zFar) {
+    return new MutableMatrix().setFrustum(left, right, bottom, top, zNear,
+        zFar);
+  }
+
+  @Override
+  public MutableMatrix perspectiveMatrix(float fovy, float aspect,
+      float zNear, float zFar) {
+    return new MutableMatrix().setPerspective(fovy, aspect, zNear, zFar);
+  }
+
+  @Override
+  public MutableColor color(float r, float g, float b) {
+    return new MutableColor(r, g, b);
+  }
+
+  @Override
+  public int colorSize() {
+    return 3;
+  }
+
+  /**
+   * Get a new quaternion. The result is normalized.
+   *
+   * @return The object.
+   */
+  public MutableQuaternion quaternion(float x, float y, float z, float w) {
+    return new MutableQuaternion(x, y, z, w);
+  }
+
+  /**
+   * Get a new quaternion that represents a rotation.
+   *
+   * @param axis
+   *          The rotation axis.
+   * @param angle
+   *          The angle of rotaion in degree.
+   * @return The object.
+   */
+  public MutableQuaternion quaternion(Vector axis, float angle) {
+    return new MutableQuaternion().setRotation(axis.x(), axis.y(), axis.z(),
+        angle);
+  }
+
+  /**
+   * Convenience accessor for a temporary matrix that is copied from
+   * <code>m</code>. Equivalent to
+   * <code>TempPool.get().matrix().set(m)</code>.
+   *
+   * @param m
+   *          The matrix to copy.
+   * @return The temporary.
+   */
+  public MutableMatrix temp(Matrix m) {
+    return TempPool.get().matrix().set(m);
+  }
+
+  /**
+   * Convenience accessor for a temporary vector that is copied from
+   * <code>v</code>. Equivalent to
+   * <code>TempPool.get().vector().set(v)</code>.
+   *
+   * @param v
+   *          The vector to copy.
+   * @return The temporary.
+   */
+  public MutableVector temp(Vector v) {
+    return TempPool.get().vector().set(v);
+  }
+
+  /**
+   * Convenience accessor for a temporary color that is copied from
+   * <code>c</code>. Equivalent to
+   * <code>TempPool.get().color().set(c)</code>.
+   *
+   * @param c
+   *          The color to copy.
+   * @return The temporary.
+   */
+  public MutableColor temp(Color c) {
+    return TempPool.get().color().set(c);
+  }
+}
@@ -0,0 +1,100 @@
+package ogl.vecmathimp;
+
+/**
+ * The numeric kernels behind <code>MutableMatrix</code>. All matrices are
+ * passed as arrays of 16 values in column-major format. Destinations may alias
+ * the arguments.
+ * <p>
+ * One implementation is picked when the class is first used. If the JVM
+ * provides the <code>jdk.incubator.vector</code> module (JDK 16 and later,
+ * started with <code>--add-modules jdk.incubator.vector</code>) and the
+ * optional SIMD implementation from the <code>simd</code> source folder is on
+ * the class path, that one is used. Otherwise the portable scalar kernels are
+ * used. The choice can be forced with the system property
+ * <code>ogl.vecmath.kernels</code> set to <code>scalar</code> or
+ * <code>simd</code>.
+ */
+public abstract class MatrixKernels {
+
+  private static final String SIMD_CLASS = "ogl.vecmathimp.SimdMatrixKernels";
+
+  private static final MatrixKernels kernels = select(System.getProperty(
+      "ogl.vecmath.kernels", "auto"));
+
+  /**
+   * Get the kernels selected at startup.
+   *
+   * @return The kernels.
+   */
+  public static MatrixKernels get() {
+    return kernels;
+  }
+
+  /**
+   * Get a specific implementation.
+   *
+   * @param name
+   *          Either <code>scalar</code> or <code>simd</code>.
+   * @return The kernels.
+   * @throws IllegalArgumentException
+   *           If the implementation is unknown or not available on this JVM.
+   */
+  public static MatrixKernels forName(String name) {
+    if ("scalar".equals(name))
+      return new ScalarMatrixKernels();
+    if ("simd".equals(name)) {
+      try {
+        return (MatrixKernels) Class.forName(SIMD_CLASS)
+            .getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+        // Missing class, missing module or no usable vector species.
+        throw new IllegalArgumentException("SIMD kernels not available", e);
+      }
+    }
+    throw new IllegalArgumentException("Unknown kernels: " + name);
+  }
+
+  private static MatrixKernels select(String name) {
+    if (!"auto".equals(name))
+      return forName(name);
+    try {
+      return forName("simd");
+    } catch (IllegalArgumentException e) {
+      return forName("scalar");
+    }
+  }
+
+  /**
+   * The name of this implementation, as accepted by {@link #forName(String)}.
+   *
+   * @return The name.
+   */
+  public abstract String name();
+
+  /**
+   * Calculate the matrix product <code>a * b</code>.
+   */
+  public abstract void mult(float[] a, float[] b, float[] dest);
+
+  /**
+   * Calculate the full inverse of <code>m</code>. If <code>m</code> is
+   * singular, <code>dest</code> is left untouched.
+   *
+   * @return False if <code>m</code> is singular, true otherwise.
+   */
+  public abstract boolean invert(float[] m, float[] dest);
+
+  /**
+   * Transform <code>count</code> coordinate triples stored as a structure of
+   * arrays by <code>m</code>. The homogenous coordinate is <code>w</code>,
+   * which must be 0 for directions or 1 for points.
+   */
+  public abstract void transform(float[] m, float w, float[] xs, float[] ys,
+      float[] zs, int offset, int count, float[] destXs, float[] destYs,
+      float[] destZs);
+
+  @Override
+  public String toString() {
+    return name();
+  }
+}
@@ -0,0 +1,226 @@
+package ogl.vecmathimp;
+
+import java.nio.FloatBuffer;
+
+import ogl.vecmath.Color;
+
+/**
+ * A mutable three component color. All methods of the <code>Color</code>
+ * interface behave exactly as specified there: they never modify this color
+ * and return a newly allocated result. In addition, every operation is
+ * available as a variant that writes its result into a caller supplied
+ * destination color and returns that destination.
+ */
+public final class MutableColor implements Color {
+
+  float r, g, b;
+
+  /**
+   * Construct black.
+   */
+  public MutableColor() {
+  }
+
+  /**
+   * Construct a color from its components.
+   *
+   * @param r
+   *          red component
+   * @param g
+   *          green component
+   * @param b
+   *          blue component
+   */
+  public MutableColor(float r, float g, float b) {
+    this.r = r;
+    this.g = g;
+    this.b = b;
+  }
+
+  @Override
+  public float getR() {
+    return r;
+  }
+
+  @Override
+  public float getG() {
+    return g;
+  }
+
+  @Override
+  public float getB() {
+    return b;
+  }
+
+  /**
+   * Overwrite all components of this color.
+   *
+   * @return This color.
+   */
+  public MutableColor set(float r, float g, float b) {
+    this.r = r;
+    this.g = g;
+    this.b = b;
+    return this;
+  }
+
+  /**
+   * Overwrite all components of this color with those of another color.
+   *
+   * @param c
+   *          The source color.
+   * @return This color.
+   */
+  public MutableColor set(Color c) {
+    return set(c.getR(), c.getG(), c.getB());
+  }
+
+  @Override
+  public boolean isBlack() {
+    return r == 0 && g == 0 && b == 0;
+  }
+
+  @Override
+  public Color add(Color c) {
+    return add(c, new MutableColor());
+  }
+
+  /**
+   * Calculate the sum of two colors.
+   *
+   * @param c
+   *          The second color.
+   * @param dest
+   *          Receives the sum.
+   * @return <code>dest</code>.
+   */
+  public MutableColor add(Color c, MutableColor dest) {
+    return dest.set(r + c.getR(), g + c.getG(), b + c.getB());
+  }
+
+  @Override
+  public Color modulate(float s) {
+    return modulate(s, new MutableColor());
+  }
+
+  /**
+   * Calculate the product of this color an a scalar.
+   *
+   * @param s
+   *          The scalar.
+   * @param dest
+   *          Receives the product.
+   * @return <code>dest</code>.
+   */
+  public MutableColor modulate(float s, MutableColor dest) {
+    return dest.set(r * s, g * s, b * s);
+  }
+
+  @Override
+  public Color modulate(Color c) {
+    return modulate(c, new MutableColor());
+  }
+
+  /**
+   * Perform the component wise multiplication of two colors.
+   *
+   * @param c
+   *          The second color.
+   * @param dest
+   *          Receives the product.
+   * @return <code>dest</code>.
+   */
+  public MutableColor modulate(Color c, MutableColor dest) {
+    return dest.set(r * c.getR(), g * c.getG(), b * c.getB());
+  }
+
+  @Override
+  public Color clip() {
+    return clip(new MutableColor());
+  }
+
+  /**
+   * Clip the color components to the interval [0.0, 1.0].
+   *
+   * @param dest
+   *          Receives the clipped color.
+   * @return <code>dest</code>.
+   */
+  public MutableColor clip(MutableColor dest) {
+    return dest.set(clamp(r), clamp(g), clamp(b));
+  }
+
+  @Override
+  public float[] asArray() {
+    return new float[] { r, g, b };
+  }
+
+  @Override
+  public FloatBuffer asBuffer() {
+    FloatBuffer buf = MutableMatrix.createFloatBuffer(size());
+    fillBuffer(buf);
+    buf.rewind();
+    return buf;
+  }
+
+  @Override
+  public void fillBuffer(FloatBuffer buf) {
+    buf.put(r);
+    buf.put(g);
+    buf.put(b);
+  }
+
+  @Override
+  public int toAwtColor() {
+    return 0xff000000 | toByte(r) << 16 | toByte(g) << 8 | toByte(b);
+  }
+
+  @Override
+  public String toString() {
+    return "(" + r + ", " + g + ", " + b + ")";
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof Color))
+      return false;
+    Color c = (Color) o;
+    // Compare like hashCode does, so that 0 and -0 (and NaNs) stay consistent
+    // with it.
+    return Float.floatToIntBits(r) == Float.floatToIntBits(c.getR())
+        && Float.floatToIntBits(g) == Float.floatToIntBits(c.getG())
+        && Float.floatToIntBits(b) == Float.floatToIntBits(c.getB());
+  }
+
+  @Override
+  public int hashCode() {
+    int h = Float.floatToIntBits(r);
+    h = 31 * h + Float.floatToIntBits(g);
+    return 31 * h + Float.floatToIntBits(b);
+  }
+
+  @Override
+  public int compareTo(Color o) {
+    int c = Float.compare(r, o.getR());
+    if (c == 0)
+      c = Float.compare(g, o.getG());
+    if (c == 0)
+      c = Float.compare(b, o.getB());
+    return c;
+  }
+
+  @Override
+  public int size() {
+    return 3;
+  }
+
+  private static float clamp(float v) {
+    return v < 0 ? 0 : v > 1 ? 1 : v;
+  }
+
+  private static int toByte(float v) {
+    return Math.round(clamp(v) * 255);
+  }
+}
@@ -0,0 +1,546 @@
+package ogl.vecmathimp;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import ogl.vecmath.Matrix;
+import ogl.vecmath.Vector;
+
+/**
+ * A mutable 4x4 matrix stored in one float array in OpenGL compatible
+ * column-major format. All methods of the <code>Matrix</code> interface behave
+ * exactly as specified there: they never modify this matrix and return a newly
+ * allocated result. In addition, every operation is available as a variant
+ * that writes its result into a caller supplied destination and returns that
+ * destination. The destination may be this matrix or one of the arguments.
+ */
+public final class MutableMatrix implements Matrix {
+
+  final float[] values = new float[16];
+
+  /**
+   * Construct the identity matrix.
+   */
+  public MutableMatrix() {
+    setIdentity();
+  }
+
+  /**
+   * Construct a copy of the given matrix.
+   *
+   * @param m
+   *          The matrix to copy.
+   */
+  public MutableMatrix(Matrix m) {
+    set(m);
+  }
+
+  /**
+   * Construct a matrix from an array of 16 elements in column-major format.
+   *
+   * @param elements
+   *          The array of elements.
+   */
+  public MutableMatrix(float[] elements) {
+    setValues(elements);
+  }
+
+  /**
+   * Overwrite this matrix with the identity matrix.
+   *
+   * @return This matrix.
+   */
+  public MutableMatrix setIdentity() {
+    Arrays.fill(values, 0);
+    values[0] = values[5] = values[10] = values[15] = 1;
+    return this;
+  }
+
+  /**
+   * Overwrite this matrix with the values of another matrix.
+   *
+   * @param m
+   *          The source matrix.
+   * @return This matrix.
+   */
+  public MutableMatrix set(Matrix m) {
+    System.arraycopy(m.asArray(), 0, values, 0, 16);
+    return this;
+  }
+
+  /**
+   * Overwrite this matrix with 16 elements given in column-major order, i.e.
+   * <code>mcr</code> is the element in column c and row r.
+   *
+   * @return This matrix.
+   */
+  public MutableMatrix set(float m00, float m01, float m02, float m03,
+      float m10, float m11, float m12, float m13, float m20, float m21,
+      float m22, float m23, float m30, float m31, float m32, float m33) {
+    float[] v = values;
+    v[0] = m00;
+    v[1] = m01;
+    v[2] = m02;
+    v[3] = m03;
+    v[4] = m10;
+    v[5] = m11;
+    v[6] = m12;
+    v[7] = m13;
+    v[8] = m20;
+    v[9] = m21;
+    v[10] = m22;
+    v[11] = m23;
+    v[12] = m30;
+    v[13] = m31;
+    v[14] = m32;
+    v[15] = m33;
+    return this;
+  }
+
+  /**
+   * Overwrite this matrix with a matrix that has the three given base vectors
+   * as its first three columns.
+   *
+   * @return This matrix.
+   */
+  public MutableMatrix setBase(Vector b0, Vector b1, Vector b2) {
+    return set(
+        b0.x(), b0.y(), b0.z(), 0,
+        b1.x(), b1.y(), b1.z(), 0,
+        b2.x(), b2.y(), b2.z(), 0,
+        0, 0, 0, 1);
+  }
+
+  /**
+   * Overwrite this matrix with a translation.
+   *
+   * @return This matrix.
+   */
+  public MutableMatrix setTranslation(float x, float y, float z) {
+    setIdentity();
+    values[12] = x;
+    values[13] = y;
+    values[14] = z;
+    return this;
+  }
+
+  /**
+   * Overwrite this matrix with a rotation around an arbitrary axis. The
+   * result is consistent with the OpenGL function <code>glRotate()</code>.
+   *
+   * @param angle
+   *          The angle of rotation in degree.
+   * @return This matrix.
+   */
+  public MutableMatrix setRotation(float ax, float ay, float az, float angle) {
+    float l = (float) Math.sqrt(ax * ax + ay * ay + az * az);
+    float x = ax / l, y = ay / l, z = az / l;
+    double rad = Math.toRadians(angle);
+    float c = (float) Math.cos(rad);
+    float s = (float) Math.sin(rad);
+    float t = 1 - c;
+    return set(
+        x * x * t + c, y * x * t + z * s, x * z * t - y * s, 0,
+        x * y * t - z * s, y * y * t + c, y * z * t + x * s, 0,
+        x * z * t + y * s, y * z * t - x * s, z * z * t + c, 0,
+        0, 0, 0, 1);
+  }
+
+  /**
+   * Overwrite this matrix with a scale transformation.
+   *
+   * @return This matrix.
+   */
+  public MutableMatrix setScale(float x, float y, float z) {
+    setIdentity();
+    values[0] = x;
+    values[5] = y;
+    values[10] = z;
+    return this;
+  }
+
+  /**
+   * Overwrite this matrix with a 'lookat' transformation. See
+   * {@link ogl.vecmath.Factory#lookatMatrix(Vector, Vector, Vector)}.
+   *
+   * @return This matrix.
+   */
+  public MutableMatrix setLookat(Vector eye, Vector center, Vector up) {
+    float fx = center.x() - eye.x();
+    float fy = center.y() - eye.y();
+    float fz = center.z() - eye.z();
+    float fl = (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+    fx /= fl;
+    fy /= fl;
+    fz /= fl;
+
+    // s = f x up
+    float sx = fy * up.z() - fz * up.y();
+    float sy = fz * up.x() - fx * up.z();
+    float sz = fx * up.y() - fy * up.x();
+    float sl = (float) Math.sqrt(sx * sx + sy * sy + sz * sz);
+    sx /= sl;
+    sy /= sl;
+    sz /= sl;
+
+    // u = s x f
+    float ux = sy * fz - sz * fy;
+    float uy = sz * fx - sx * fz;
+    float uz = sx * fy - sy * fx;
+
+    float ex = eye.x(), ey = eye.y(), ez = eye.z();
+    return set(
+        sx, ux, -fx, 0,
+        sy, uy, -fy, 0,
+        sz, uz, -fz, 0,
+        -(sx * ex + sy * ey + sz * ez), -(ux * ex + uy * ey + uz * ez),
+        fx * ex + fy * ey + fz * ez, 1);
+  }
+
+  /**
+   * Overwrite this matrix with a projection normalization transformation. See
+   * {@link ogl.vecmath.Factory#frustumMatrix(float, float, float, float, float, float)}.
+   *
+   * @return This matrix.
+   */
+  public MutableMatrix setFrustum(float left, float right, float bottom,
+      float top, float zNear, float zFar) {
+    return set(
+        2 * zNear / (right - left), 0, 0, 0,
+        0, 2 * zNear / (top - bottom), 0, 0,
+        (right + left) / (right - left), (top + bottom) / (top - bottom),
+        -(zFar + zNear) / (zFar - zNear), -1,
+        0, 0, -2 * zFar * zNear / (zFar - zNear), 0);
+  }
+
+  /**
+   * Overwrite this matrix with a symmetric projection normalization
+   * transformation. See
+   * {@link ogl.vecmath.Factory#perspectiveMatrix(float, float, float, float)}.
+   *
+   * @return This matrix.
+   */
+  public MutableMatrix setPerspective(float fovy, float aspect, float zNear,
+      float zFar) {
+    float top = zNear * (float) Math.tan(Math.toRadians(fovy) / 2);
+    float right = top * aspect;
+    return setFrustum(-right, right, -top, top, zNear, zFar);
+  }
+
+  @Override
+  public float[] getValues() {
+    return values.clone();
+  }
+
+  @Override
+  public void setValues(float[] vals) {
+    System.arraycopy(vals, 0, values, 0, 16);
+  }
+
+  @Override
+  public float get(int c, int r) {
+    return values[c * 4 + r];
+  }
+
+  @Override
+  public Matrix mult(Matrix m) {
+    return mult(m, new MutableMatrix());
+  }
+
+  /**
+   * Calculate the product of two matrices.
+   *
+   * @param m
+   *          The second matrix.
+   * @param dest
+   *          Receives the product.
+   * @return <code>dest</code>.
+   */
+  public MutableMatrix mult(Matrix m, MutableMatrix dest) {
+    MatrixKernels.get().mult(values, m.asArray(), dest.values);
+    return dest;
+  }
+
+  @Override
+  public Matrix multSlow(Matrix m) {
+    MutableMatrix result = new MutableMatrix();
+    for (int c = 0; c != 4; c++)
+      for (int r = 0; r != 4; r++) {
+        float sum = 0;
+        for (int k = 0; k != 4; k++)
+          sum += get(k, r) * m.get(c, k);
+        result.values[c * 4 + r] = sum;
+      }
+    return result;
+  }
+
+  @Override
+  public Vector transformPoint(Vector v) {
+    return transformPoint(v, new MutableVector());
+  }
+
+  /**
+   * Transform a point by this matrix. The homogenous coordinate is assumed to
+   * be 1.0.
+   *
+   * @param v
+   *          The point.
+   * @param dest
+   *          Receives the transformed point.
+   * @return <code>dest</code>.
+   */
+  public MutableVector transformPoint(Vector v, MutableVector dest) {
+    float[] m = values;
+    float x = v.x(), y = v.y(), z = v.z();
+    return dest.set(
+        m[0] * x + m[4] * y + m[8] * z + m[12],
+        m[1] * x + m[5] * y + m[9] * z + m[13],
+        m[2] * x + m[6] * y + m[10] * z + m[14]);
+  }
+
+  @Override
+  public Vector transformDirection(Vector v) {
+    return transformDirection(v, new MutableVector());
+  }
+
+  /**
+   * Transform a direction by this matrix. The homogenous coordinate is
+   * assumed to be 0.0.
+   *
+   * @param v
+   *          The direction vector.
+   * @param dest
+   *          Receives the transformed direction.
+   * @return <code>dest</code>.
+   */
+  public MutableVector transformDirection(Vector v, MutableVector dest) {
+    float[] m = values;
+    float x = v.x(), y = v.y(), z = v.z();
+    return dest.set(
+        m[0] * x + m[4] * y + m[8] * z,
+        m[1] * x + m[5] * y + m[9] * z,
+        m[2] * x + m[6] * y + m[10] * z);
+  }
+
+  @Override
+  public Vector transformNormal(Vector v) {
+    return transformNormal(v, new MutableVector());
+  }
+
+  /**
+   * Transform a normal by this matrix. The matrix is assumed to be a
+   * rigid-body transformation with a uniform scaling component at most.
+   *
+   * @param v
+   *          The normal.
+   * @param dest
+   *          Receives the transformed normal.
+   * @return <code>dest</code>.
+   */
+  public MutableVector transformNormal(Vector v, MutableVector dest) {
+    return transformDirection(v, dest);
+  }
+
+  @Override
+  public Matrix transpose() {
+    return transpose(new MutableMatrix());
+  }
+
+  /**
+   * Transpose this matrix.
+   *
+   * @param dest
+   *          Receives the transposed matrix.
+   * @return <code>dest</code>.
+   */
+  public MutableMatrix transpose(MutableMatrix dest) {
+    float[] m = values;
+    return dest.set(
+        m[0], m[4], m[8], m[12],
+        m[1], m[5], m[9], m[13],
+        m[2], m[6], m[10], m[14],
+        m[3], m[7], m[11], m[15]);
+  }
+
+  @Override
+  public Matrix invertRigid() {
+    return invertRigid(new MutableMatrix());
+  }
+
+  /**
+   * Calculate the inverse matrix. The matrix is assumed to be orthonormal.
+   *
+   * @param dest
+   *          Receives the inverse matrix.
+   * @return <code>dest</code>.
+   */
+  public MutableMatrix invertRigid(MutableMatrix dest) {
+    float[] m = values;
+    float tx = m[12], ty = m[13], tz = m[14];
+    return dest.set(
+        m[0], m[4], m[8], 0,
+        m[1], m[5], m[9], 0,
+        m[2], m[6], m[10], 0,
+        -(m[0] * tx + m[1] * ty + m[2] * tz),
+        -(m[4] * tx + m[5] * ty + m[6] * tz),
+        -(m[8] * tx + m[9] * ty + m[10] * tz), 1);
+  }
+
+  @Override
+  public Matrix invertFull() {
+    return invertFull(new MutableMatrix());
+  }
+
+  /**
+   * Calculate the full inverse of this matrix.
+   *
+   * @param dest
+   *          Receives the inverse matrix.
+   * @return <code>dest</code>.
+   * @throws ArithmeticException
+   *           If the matrix is singular.
+   */
+  public MutableMatrix invertFull(MutableMatrix dest) {
+    if (!MatrixKernels.get().invert(values, dest.values))
+      throw new ArithmeticException("Matrix is singular");
+    return dest;
+  }
+
+  @Override
+  public void transformPoints(float[] xs, float[] ys, float[] zs, int offset,
+      int count, float[] destXs, float[] destYs, float[] destZs) {
+    MatrixKernels.get().transform(values, 1, xs, ys, zs, offset, count,
+        destXs, destYs, destZs);
+  }
+
+  @Override
+  public void transformDirections(float[] xs, float[] ys, float[] zs,
+      int offset, int count, float[] destXs, float[] destYs, float[] destZs) {
+    MatrixKernels.get().transform(values, 0, xs, ys, zs, offset, count,
+        destXs, destYs, destZs);
+  }
+
+  /**
+   * Get the array of 16 matrix values. This returns the internal
+   * represenatation of the matrix in OpenGL compatible column-major format and
+   * does not allocate.
+   *
+   * @return The array of matrix values.
+   */
+  @Override
+  public float[] asArray() {
+    return values;
+  }
+
+  @Override
+  public FloatBuffer asBuffer() {
+    FloatBuffer b = createFloatBuffer(16);
+    fillBuffer(b);
+    b.rewind();
+    return b;
+  }
+
+  @Override
+  public void fillBuffer(FloatBuffer buf) {
+    buf.put(values);
+  }
+
+  @Override
+  public Matrix getRotation() {
+    return getRotation(new MutableMatrix());
+  }
+
+  /**
+   * Extract the rotational part of this matrix.
+   *
+   * @param dest
+   *          Receives the rotation.
+   * @return <code>dest</code>.
+   */
+  public MutableMatrix getRotation(MutableMatrix dest) {
+    float[] m = values;
+    return dest.set(
+        m[0], m[1], m[2], 0,
+        m[4], m[5], m[6], 0,
+        m[8], m[9], m[10], 0,
+        0, 0, 0, 1);
+  }
+
+  @Override
+  public Matrix getTranslation() {
+    return getTranslation(new MutableMatrix());
+  }
+
+  /**
+   * Extract the translational part of this matrix.
+   *
+   * @param dest
+   *          Receives the translation.
+   * @return <code>dest</code>.
+   */
+  public MutableMatrix getTranslation(MutableMatrix dest) {
+    return dest.setTranslation(values[12], values[13], values[14]);
+  }
+
+  @Override
+  public Vector getPosition() {
+    return getPosition(new MutableVector());
+  }
+
+  /**
+   * Extract the translational elements of this matrix.
+   *
+   * @param dest
+   *          Receives the position.
+   * @return <code>dest</code>.
+   */
+  public MutableVector getPosition(MutableVector dest) {
+    return dest.set(values[12], values[13], values[14]);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder();
+    for (int r = 0; r != 4; r++) {
+      s.append(r == 0 ? "[" : " ");
+      for (int c = 0; c != 4; c++) {
+        s.append(get(c, r));
+        if (c != 3)
+          s.append(", ");
+      }
+      s.append(r == 3 ? "]" : "\n");
+    }
+    return s.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof Matrix))
+      return false;
+    return Arrays.equals(values, ((Matrix) o).asArray());
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+  @Override
+  public boolean equals(Matrix m, float epsilon) {
+    float[] o = m.asArray();
+    for (int i = 0; i != 16; i++)
+      if (Math.abs(values[i] - o[i]) > epsilon)
+        return false;
+    return true;
+  }
+
+  // Allocate a direct float buffer in native byte order.
+  static FloatBuffer createFloatBuffer(int size) {
+    return ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder())
+        .asFloatBuffer();
+  }
+}
@@ -0,0 +1,216 @@
+package ogl.vecmathimp;
+
+import ogl.vecmath.Quaternion;
+
+/**
+ * A mutable quaternion. All methods of the <code>Quaternion</code> interface
+ * behave exactly as specified there: they never modify this quaternion and
+ * return a newly allocated result. In addition, every operation is available
+ * as a variant that writes its result into a caller supplied destination and
+ * returns that destination.
+ */
+public final class MutableQuaternion implements Quaternion {
+
+  float x, y, z, w;
+
+  /**
+   * Construct the identity rotation.
+   */
+  public MutableQuaternion() {
+    w = 1;
+  }
+
+  /**
+   * Construct a quaternion from its components. The result is normalized.
+   */
+  public MutableQuaternion(float x, float y, float z, float w) {
+    set(x, y, z, w).normalize(this);
+  }
+
+  @Override
+  public float x() {
+    return x;
+  }
+
+  @Override
+  public float y() {
+    return y;
+  }
+
+  @Override
+  public float z() {
+    return z;
+  }
+
+  @Override
+  public float w() {
+    return w;
+  }
+
+  /**
+   * Overwrite all components of this quaternion. The components are used as
+   * given; call <code>normalize(this)</code> if they are not normalized.
+   *
+   * @return This quaternion.
+   */
+  public MutableQuaternion set(float x, float y, float z, float w) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    this.w = w;
+    return this;
+  }
+
+  /**
+   * Overwrite this quaternion with a rotation around an axis.
+   *
+   * @param angle
+   *          The angle of rotation in degree.
+   * @return This quaternion.
+   */
+  public MutableQuaternion setRotation(float ax, float ay, float az,
+      float angle) {
+    float l = (float) Math.sqrt(ax * ax + ay * ay + az * az);
+    double half = Math.toRadians(angle) / 2;
+    float s = (float) Math.sin(half) / l;
+    return set(ax * s, ay * s, az * s, (float) Math.cos(half));
+  }
+
+  @Override
+  public Quaternion negate() {
+    return negate(new MutableQuaternion());
+  }
+
+  /**
+   * Negate the quaternion.
+   *
+   * @param dest
+   *          Receives the negated quaternion.
+   * @return <code>dest</code>.
+   */
+  public MutableQuaternion negate(MutableQuaternion dest) {
+    return dest.set(-x, -y, -z, -w);
+  }
+
+  @Override
+  public Quaternion conjugate() {
+    return conjugate(new MutableQuaternion());
+  }
+
+  /**
+   * Conjugate the quaternion.
+   *
+   * @param dest
+   *          Receives the conjugated quaternion.
+   * @return <code>dest</code>.
+   */
+  public MutableQuaternion conjugate(MutableQuaternion dest) {
+    return dest.set(-x, -y, -z, w);
+  }
+
+  @Override
+  public Quaternion mul(Quaternion q) {
+    return mul(q, new MutableQuaternion());
+  }
+
+  /**
+   * Calculate the product of two quaternions.
+   *
+   * @param q
+   *          The other quaternion.
+   * @param dest
+   *          Receives the product.
+   * @return <code>dest</code>.
+   */
+  public MutableQuaternion mul(Quaternion q, MutableQuaternion dest) {
+    float qx = q.x(), qy = q.y(), qz = q.z(), qw = q.w();
+    return dest.set(
+        w * qx + x * qw + y * qz - z * qy,
+        w * qy - x * qz + y * qw + z * qx,
+        w * qz + x * qy - y * qx + z * qw,
+        w * qw - x * qx - y * qy - z * qz);
+  }
+
+  @Override
+  public Quaternion inverse() {
+    return inverse(new MutableQuaternion());
+  }
+
+  /**
+   * Invert the quaternion.
+   *
+   * @param dest
+   *          Receives the inverse.
+   * @return <code>dest</code>.
+   */
+  public MutableQuaternion inverse(MutableQuaternion dest) {
+    float n = x * x + y * y + z * z + w * w;
+    return dest.set(-x / n, -y / n, -z / n, w / n);
+  }
+
+  @Override
+  public Quaternion normalize() {
+    return normalize(new MutableQuaternion());
+  }
+
+  /**
+   * Normalize the quaternion.
+   *
+   * @param dest
+   *          Receives the normalized quaternion.
+   * @return <code>dest</code>.
+   */
+  public MutableQuaternion normalize(MutableQuaternion dest) {
+    float l = (float) Math.sqrt(x * x + y * y + z * z + w * w);
+    return dest.set(x / l, y / l, z / l, w / l);
+  }
+
+  @Override
+  public Quaternion interpolate(Quaternion q, float alpha) {
+    return interpolate(q, alpha, new MutableQuaternion());
+  }
+
+  /**
+   * Perform a spherical linear interpolation between this quaternion and the
+   * quaternion parameter along the shorter arc.
+   *
+   * @param q
+   *          The other quaternion.
+   * @param alpha
+   *          The interpolation parameter from the interval [0, 1].
+   * @param dest
+   *          Receives the interpolated quaternion.
+   * @return <code>dest</code>.
+   */
+  public MutableQuaternion interpolate(Quaternion q, float alpha,
+      MutableQuaternion dest) {
+    float qx = q.x(), qy = q.y(), qz = q.z(), qw = q.w();
+    float cos = x * qx + y * qy + z * qz + w * qw;
+    if (cos < 0) {
+      cos = -cos;
+      qx = -qx;
+      qy = -qy;
+      qz = -qz;
+      qw = -qw;
+    }
+
+    float a, b;
+    if (cos > 0.9995f) {
+      // Nearly parallel, fall back to normalized linear interpolation.
+      a = 1 - alpha;
+      b = alpha;
+    } else {
+      double theta = Math.acos(cos);
+      double sin = Math.sin(theta);
+      a = (float) (Math.sin((1 - alpha) * theta) / sin);
+      b = (float) (Math.sin(alpha * theta) / sin);
+    }
+    return dest.set(a * x + b * qx, a * y + b * qy, a * z + b * qz,
+        a * w + b * qw).normalize(dest);
+  }
+
+  @Override
+  public String toString() {
+    return "(" + x + ", " + y + ", " + z + ", " + w + ")";
+  }
+}
@@ -0,0 +1,267 @@
+package ogl.vecmathimp;
+
+import java.nio.FloatBuffer;
+
+import ogl.vecmath.Vector;
+
+/**
+ * A mutable three component vector. All methods of the <code>Vector</code>
+ * interface behave exactly as specified there: they never modify this vector
+ * and return a newly allocated result. In addition, every operation is
+ * available as a variant that writes its result into a caller supplied
+ * destination vector and returns that destination. The destination may be the
+ * vector itself or one of the arguments.
+ */
+public final class MutableVector implements Vector {
+
+  float x, y, z;
+
+  /**
+   * Construct the zero vector.
+   */
+  public MutableVector() {
+  }
+
+  /**
+   * Construct a vector from its components.
+   *
+   * @param x
+   *          The x component.
+   * @param y
+   *          The y component.
+   * @param z
+   *          The z component.
+   */
+  public MutableVector(float x, float y, float z) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+  }
+
+  /**
+   * Construct a copy of the given vector.
+   *
+   * @param v
+   *          The vector to copy.
+   */
+  public MutableVector(Vector v) {
+    this(v.x(), v.y(), v.z());
+  }
+
+  @Override
+  public float x() {
+    return x;
+  }
+
+  @Override
+  public float y() {
+    return y;
+  }
+
+  @Override
+  public float z() {
+    return z;
+  }
+
+  /**
+   * Overwrite all components of this vector.
+   *
+   * @return This vector.
+   */
+  public MutableVector set(float x, float y, float z) {
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    return this;
+  }
+
+  /**
+   * Overwrite all components of this vector with those of another vector.
+   *
+   * @param v
+   *          The source vector.
+   * @return This vector.
+   */
+  public MutableVector set(Vector v) {
+    return set(v.x(), v.y(), v.z());
+  }
+
+  @Override
+  public Vector add(Vector v) {
+    return add(v, new MutableVector());
+  }
+
+  /**
+   * Component-wise addition of two vectors.
+   *
+   * @param v
+   *          The second vector.
+   * @param dest
+   *          Receives the sum.
+   * @return <code>dest</code>.
+   */
+  public MutableVector add(Vector v, MutableVector dest) {
+    return dest.set(x + v.x(), y + v.y(), z + v.z());
+  }
+
+  @Override
+  public Vector sub(Vector v) {
+    return sub(v, new MutableVector());
+  }
+
+  /**
+   * Subtract a vector from this vector.
+   *
+   * @param v
+   *          The second vector.
+   * @param dest
+   *          Receives the difference.
+   * @return <code>dest</code>.
+   */
+  public MutableVector sub(Vector v, MutableVector dest) {
+    return dest.set(x - v.x(), y - v.y(), z - v.z());
+  }
+
+  @Override
+  public Vector mult(float s) {
+    return mult(s, new MutableVector());
+  }
+
+  /**
+   * Multiply this vector by a scalar.
+   *
+   * @param s
+   *          The scalar.
+   * @param dest
+   *          Receives the scaled vector.
+   * @return <code>dest</code>.
+   */
+  public MutableVector mult(float s, MutableVector dest) {
+    return dest.set(x * s, y * s, z * s);
+  }
+
+  @Override
+  public Vector mult(Vector v) {
+    return mult(v, new MutableVector());
+  }
+
+  /**
+   * Componentwise multiplication of two vectors. This is not the dot product!
+   *
+   * @param v
+   *          The second vector.
+   * @param dest
+   *          Receives the product.
+   * @return <code>dest</code>.
+   */
+  public MutableVector mult(Vector v, MutableVector dest) {
+    return dest.set(x * v.x(), y * v.y(), z * v.z());
+  }
+
+  @Override
+  public float length() {
+    return (float) Math.sqrt(x * x + y * y + z * z);
+  }
+
+  @Override
+  public Vector normalize() {
+    return normalize(new MutableVector());
+  }
+
+  /**
+   * Normalize this vector.
+   *
+   * @param dest
+   *          Receives the normalized vector.
+   * @return <code>dest</code>.
+   */
+  public MutableVector normalize(MutableVector dest) {
+    float l = length();
+    return dest.set(x / l, y / l, z / l);
+  }
+
+  @Override
+  public float dot(Vector v) {
+    return x * v.x() + y * v.y() + z * v.z();
+  }
+
+  @Override
+  public Vector cross(Vector v) {
+    return cross(v, new MutableVector());
+  }
+
+  /**
+   * Calculate the cross product of two vectors.
+   *
+   * @param v
+   *          The second vector.
+   * @param dest
+   *          Receives the cross product.
+   * @return <code>dest</code>.
+   */
+  public MutableVector cross(Vector v, MutableVector dest) {
+    float vx = v.x(), vy = v.y(), vz = v.z();
+    return dest.set(y * vz - z * vy, z * vx - x * vz, x * vy - y * vx);
+  }
+
+  @Override
+  public float[] asArray() {
+    return new float[] { x, y, z };
+  }
+
+  @Override
+  public FloatBuffer asBuffer() {
+    FloatBuffer b = MutableMatrix.createFloatBuffer(size());
+    fillBuffer(b);
+    b.rewind();
+    return b;
+  }
+
+  @Override
+  public void fillBuffer(FloatBuffer buf) {
+    buf.put(x);
+    buf.put(y);
+    buf.put(z);
+  }
+
+  @Override
+  public String toString() {
+    return "(" + x + ", " + y + ", " + z + ")";
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof Vector))
+      return false;
+    Vector v = (Vector) o;
+    // Compare like hashCode does, so that 0 and -0 (and NaNs) stay consistent
+    // with it.
+    return Float.floatToIntBits(x) == Float.floatToIntBits(v.x())
+        && Float.floatToIntBits(y) == Float.floatToIntBits(v.y())
+        && Float.floatToIntBits(z) == Float.floatToIntBits(v.z());
+  }
+
+  @Override
+  public int hashCode() {
+    int h = Float.floatToIntBits(x);
+    h = 31 * h + Float.floatToIntBits(y);
+    return 31 * h + Float.floatToIntBits(z);
+  }
+
+  @Override
+  public int compareTo(Vector o) {
+    int c = Float.compare(x, o.x());
+    if (c == 0)
+      c = Float.compare(y, o.y());
+    if (c == 0)
+      c = Float.compare(z, o.z());
+    return c;
+  }
+
+  @Override
+  public int size() {
+    return 3;
+  }
+}
@@ -0,0 +1,106 @@
+package ogl.vecmathimp;
+
+import ogl.vecmath.BatchTransform;
+
+/**
+ * Portable scalar implementation of <code>MatrixKernels</code>. The matrices
+ * are fully unrolled into locals, which also makes aliasing of arguments and
+ * destination harmless.
+ */
+final class ScalarMatrixKernels extends MatrixKernels {
+
+  @Override
+  public String name() {
+    return "scalar";
+  }
+
+  @Override
+  public void mult(float[] a, float[] b, float[] dest) {
+    float a00 = a[0], a01 = a[1], a02 = a[2], a03 = a[3];
+    float a10 = a[4], a11 = a[5], a12 = a[6], a13 = a[7];
+    float a20 = a[8], a21 = a[9], a22 = a[10], a23 = a[11];
+    float a30 = a[12], a31 = a[13], a32 = a[14], a33 = a[15];
+
+    float b00 = b[0], b01 = b[1], b02 = b[2], b03 = b[3];
+    float b10 = b[4], b11 = b[5], b12 = b[6], b13 = b[7];
+    float b20 = b[8], b21 = b[9], b22 = b[10], b23 = b[11];
+    float b30 = b[12], b31 = b[13], b32 = b[14], b33 = b[15];
+
+    dest[0] = a00 * b00 + a10 * b01 + a20 * b02 + a30 * b03;
+    dest[1] = a01 * b00 + a11 * b01 + a21 * b02 + a31 * b03;
+    dest[2] = a02 * b00 + a12 * b01 + a22 * b02 + a32 * b03;
+    dest[3] = a03 * b00 + a13 * b01 + a23 * b02 + a33 * b03;
+
+    dest[4] = a00 * b10 + a10 * b11 + a20 * b12 + a30 * b13;
+    dest[5] = a01 * b10 + a11 * b11 + a21 * b12 + a31 * b13;
+    dest[6] = a02 * b10 + a12 * b11 + a22 * b12 + a32 * b13;
+    dest[7] = a03 * b10 + a13 * b11 + a23 * b12 + a33 * b13;
+
+    dest[8] = a00 * b20 + a10 * b21 + a20 * b22 + a30 * b23;
+    dest[9] = a01 * b20 + a11 * b21 + a21 * b22 + a31 * b23;
+    dest[10] = a02 * b20 + a12 * b21 + a22 * b22 + a32 * b23;
+    dest[11] = a03 * b20 + a13 * b21 + a23 * b22 + a33 * b23;
+
+    dest[12] = a00 * b30 + a10 * b31 + a20 * b32 + a30 * b33;
+    dest[13] = a01 * b30 + a11 * b31 + a21 * b32 + a31 * b33;
+    dest[14] = a02 * b30 + a12 * b31 + a22 * b32 + a32 * b33;
+    dest[15] = a03 * b30 + a13 * b31 + a23 * b32 + a33 * b33;
+  }
+
+  @Override
+  public boolean invert(float[] m, float[] dest) {
+    float m0 = m[0], m1 = m[1], m2 = m[2], m3 = m[3];
+    float m4 = m[4], m5 = m[5], m6 = m[6], m7 = m[7];
+    float m8 = m[8], m9 = m[9], m10 = m[10], m11 = m[11];
+    float m12 = m[12], m13 = m[13], m14 = m[14], m15 = m[15];
+
+    // 2x2 sub-determinants of the first and last two columns.
+    float s0 = m0 * m5 - m4 * m1;
+    float s1 = m0 * m6 - m4 * m2;
+    float s2 = m0 * m7 - m4 * m3;
+    float s3 = m1 * m6 - m5 * m2;
+    float s4 = m1 * m7 - m5 * m3;
+    float s5 = m2 * m7 - m6 * m3;
+
+    float c5 = m10 * m15 - m14 * m11;
+    float c4 = m9 * m15 - m13 * m11;
+    float c3 = m9 * m14 - m13 * m10;
+    float c2 = m8 * m15 - m12 * m11;
+    float c1 = m8 * m14 - m12 * m10;
+    float c0 = m8 * m13 - m12 * m9;
+
+    float det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+    if (det == 0)
+      return false;
+    float inv = 1 / det;
+
+    dest[0] = (m5 * c5 - m6 * c4 + m7 * c3) * inv;
+    dest[1] = (-m1 * c5 + m2 * c4 - m3 * c3) * inv;
+    dest[2] = (m13 * s5 - m14 * s4 + m15 * s3) * inv;
+    dest[3] = (-m9 * s5 + m10 * s4 - m11 * s3) * inv;
+
+    dest[4] = (-m4 * c5 + m6 * c2 - m7 * c1) * inv;
+    dest[5] = (m0 * c5 - m2 * c2 + m3 * c1) * inv;
+    dest[6] = (-m12 * s5 + m14 * s2 - m15 * s1) * inv;
+    dest[7] = (m8 * s5 - m10 * s2 + m11 * s1) * inv;
+
+    dest[8] = (m4 * c4 - m5 * c2 + m7 * c0) * inv;
+    dest[9] = (-m0 * c4 + m1 * c2 - m3 * c0) * inv;
+    dest[10] = (m12 * s4 - m13 * s2 + m15 * s0) * inv;
+    dest[11] = (-m8 * s4 + m9 * s2 - m11 * s0) * inv;
+
+    dest[12] = (-m4 * c3 + m5 * c1 - m6 * c0) * inv;
+    dest[13] = (m0 * c3 - m1 * c1 + m2 * c0) * inv;
+    dest[14] = (-m12 * s3 + m13 * s1 - m14 * s0) * inv;
+    dest[15] = (m8 * s3 - m9 * s1 + m10 * s0) * inv;
+    return true;
+  }
+
+  @Override
+  public void transform(float[] m, float w, float[] xs, float[] ys,
+      float[] zs, int offset, int count, float[] destXs, float[] destYs,
+      float[] destZs) {
+    BatchTransform.transform(m, w, xs, ys, zs, offset, count, destXs, destYs,
+        destZs);
+  }
+}
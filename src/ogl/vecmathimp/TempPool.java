@@ -0,0 +1,123 @@
+package ogl.vecmathimp;
+
+import java.util.Arrays;
+
+/**
+ * A per-thread stack of reusable temporaries for the mutable vecmath types.
+ * Temporaries are handed out between a matching pair of <code>push()</code>
+ * and <code>pop()</code> calls and are recycled by the <code>pop()</code>. A
+ * frame loop that brackets its work like this does not allocate once the pool
+ * has grown to its working size:
+ *
+ * <pre>
+ * TempPool pool = TempPool.get();
+ * pool.push();
+ * MutableMatrix m = pool.matrix().setTranslation(x, y, z);
+ * ...
+ * pool.pop();
+ * </pre>
+ *
+ * Temporaries must not be referenced after the <code>pop()</code> that
+ * released them. Their contents are undefined when handed out.
+ */
+public final class TempPool {
+
+  private static final ThreadLocal<TempPool> pools = new ThreadLocal<TempPool>() {
+    @Override
+    protected TempPool initialValue() {
+      return new TempPool();
+    }
+  };
+
+  private MutableVector[] vectors = new MutableVector[16];
+  private MutableMatrix[] matrices = new MutableMatrix[16];
+  private MutableColor[] colors = new MutableColor[16];
+  private int vectorTop, matrixTop, colorTop;
+
+  // Saved tops, three ints per push().
+  private int[] marks = new int[3 * 16];
+  private int markTop;
+
+  private TempPool() {
+  }
+
+  /**
+   * Get the pool of the calling thread.
+   *
+   * @return The pool.
+   */
+  public static TempPool get() {
+    return pools.get();
+  }
+
+  /**
+   * Open a new scope. All temporaries handed out until the matching
+   * <code>pop()</code> are released by it.
+   */
+  public void push() {
+    if (markTop == marks.length)
+      marks = Arrays.copyOf(marks, marks.length * 2);
+    marks[markTop++] = vectorTop;
+    marks[markTop++] = matrixTop;
+    marks[markTop++] = colorTop;
+  }
+
+  /**
+   * Close the innermost scope and release its temporaries.
+   *
+   * @throws IllegalStateException
+   *           If there is no matching <code>push()</code>.
+   */
+  public void pop() {
+    if (markTop == 0)
+      throw new IllegalStateException("TempPool.pop() without push()");
+    colorTop = marks[--markTop];
+    matrixTop = marks[--markTop];
+    vectorTop = marks[--markTop];
+  }
+
+  /**
+   * Borrow a temporary vector.
+   *
+   * @return The vector.
+   */
+  public MutableVector vector() {
+    if (vectorTop == vectors.length)
+      vectors = Arrays.copyOf(vectors, vectors.length * 2);
+    MutableVector v = vectors[vectorTop];
+    if (v == null)
+      v = vectors[vectorTop] = new MutableVector();
+    vectorTop++;
+    return v;
+  }
+
+  /**
+   * Borrow a temporary matrix.
+   *
+   * @return The matrix.
+   */
+  public MutableMatrix matrix() {
+    if (matrixTop == matrices.length)
+      matrices = Arrays.copyOf(matrices, matrices.length * 2);
+    MutableMatrix m = matrices[matrixTop];
+    if (m == null)
+      m = matrices[matrixTop] = new MutableMatrix();
+    matrixTop++;
+    return m;
+  }
+
+  /**
+   * Borrow a temporary color.
+   *
+   * @return The color.
+   */
+  public MutableColor color() {
+    if (colorTop == colors.length)
+      colors = Arrays.copyOf(colors, colors.length * 2);
+    MutableColor c = colors[colorTop];
+    if (c == null)
+      c = colors[colorTop] = new MutableColor();
+    colorTop++;
+    return c;
+  }
+}